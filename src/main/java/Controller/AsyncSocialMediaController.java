@@ -0,0 +1,80 @@
+package Controller;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import Util.ConnectionUtil;
+import io.javalin.http.Handler;
+
+/**
+ * The same endpoints as {@link SocialMediaController}, but every handler runs on a dedicated, bounded executor and the
+ * Jetty thread that received the request is released as soon as the work is queued (Javalin's ctx.future).
+ *
+ * The executor has as many threads as the connection pool has connections, so handlers never wait on each other for a
+ * connection, and a bounded queue in front of them. When that queue is full the request is rejected straight away with
+ * 503 rather than piling up. Sizing can be overridden with the async.executor.threads and async.executor.queueCapacity
+ * system properties.
+ */
+public class AsyncSocialMediaController extends SocialMediaController {
+
+    private final ThreadPoolExecutor executor;
+
+    public AsyncSocialMediaController(){
+        this(Integer.getInteger("async.executor.threads", ConnectionUtil.getPool().getMaxSize()),
+                Integer.getInteger("async.executor.queueCapacity", 100));
+    }
+
+    /**
+     * @param threads number of handlers that may run at once.
+     * @param queueCapacity number of requests that may wait for a thread before new ones are rejected with 503.
+     */
+    public AsyncSocialMediaController(int threads, int queueCapacity){
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "handler-executor-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        //idle controllers, e.g. one per test, do not keep their threads around
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs the handler on the executor. A full queue fails the future with a {@link RejectedExecutionException}, which
+     * startAPI maps to 503; anything else the handler throws, Errors included, fails the future and goes to Javalin's
+     * exception mapping as usual.
+     */
+    @Override
+    protected Handler route(Handler handler) {
+        return ctx -> ctx.future(() -> {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            try {
+                executor.execute(() -> {
+                    try {
+                        handler.handle(ctx);
+                        future.complete(null);
+                    } catch (Throwable e) {
+                        //an Error must fail the future too, or the request would hang until Jetty's async timeout
+                        future.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        });
+    }
+
+    /**
+     * @return the executor handlers run on, exposing its active count and queue depth.
+     */
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+}
@@ -1,14 +1,34 @@
 package Controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 
 import Model.Account;
 import Model.Message;
 import Service.AccountService;
 import Service.MessageService;
+import Util.BoundedInputStream;
+import Util.ConnectionUtil;
+import Util.DirectJsonWriter;
+import Util.EncodedJson;
+import Util.JsonCodec;
 import io.javalin.Javalin;
+import io.javalin.http.ContentType;
 import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.Header;
+import io.javalin.util.LoomThreadPool;
+import io.javalin.util.LoomUtil;
 
 /**
  * You will need to write your own endpoints and handlers for your controller. The endpoints you will need can be
@@ -17,12 +37,17 @@ import io.javalin.http.Context;
  */
 public class SocialMediaController {
 
+    /**
+     * Largest body accepted by the single account and message endpoints. A valid one is a few hundred bytes at most.
+     */
+    private static final long MAX_JSON_BODY_BYTES = Long.getLong("server.maxJsonBodyBytes", 16384);
+
     AccountService accountService;
     MessageService messageService;
 
     public SocialMediaController(){
         accountService = new AccountService();
-        messageService = new MessageService();
+        messageService = new MessageService(accountService);
     }
     
     /**
@@ -31,21 +56,62 @@ public class SocialMediaController {
      * @return a Javalin app object which defines the behavior of the Javalin controller.
      */
     public Javalin startAPI() {
-        Javalin app = Javalin.create();
+        Javalin app = Javalin.create(config -> {
+            config.jetty.server(() -> new Server(createThreadPool()));
+            config.jsonMapper(JsonCodec.getInstance());
+        });
         app.get("example-endpoint", this::exampleHandler);
 
-        app.post("/register", this::userRegistration);
-        app.post("/login", this::userLogin);
-        app.post("/messages", this::postNewMessage);
-        app.get("/messages", this::getAllMessages);
-        app.get("/messages/{message_id}", this::getMessageById);
-        app.delete("/messages/{message_id}", this::deleteMessageById);
-        app.patch("/messages/{message_id}", this::patchUpdateMessageById);
-        app.get("/accounts/{account_id}/messages", this::getMessagesByAccountId);
+        app.post("/register", route(this::userRegistration));
+        app.post("/login", route(this::userLogin));
+        app.post("/messages", route(this::postNewMessage));
+        app.post("/messages/batch", route(this::postNewMessages));
+        app.get("/messages", route(this::getAllMessages));
+        app.get("/messages/{message_id}", route(this::getMessageById));
+        app.delete("/messages/{message_id}", route(this::deleteMessageById));
+        app.patch("/messages/{message_id}", route(this::patchUpdateMessageById));
+        app.get("/accounts/{account_id}/messages", route(this::getMessagesByAccountId));
+
+        //an overloaded write path or an exhausted connection pool sheds load with 503 instead of queuing without limit
+        app.exception(RejectedExecutionException.class, (e, ctx) -> ctx.status(503));
+        app.exception(ConnectionUtil.UnavailableException.class, (e, ctx) -> ctx.status(503));
+        app.exception(BoundedInputStream.TooLargeException.class, (e, ctx) -> ctx.status(413));
 
         return app;
     }
 
+    /**
+     * Wraps each endpoint's handler as it is registered. Handlers run as they are, on the Jetty thread that received the
+     * request; {@link AsyncSocialMediaController} overrides this to move them off it.
+     */
+    protected Handler route(Handler handler) {
+        return handler;
+    }
+
+    /**
+     * Chooses the threads that run request handlers, from the server.threadMode system property:
+     * - "platform" (the default): a bounded pool of server.maxThreads (250) platform threads, so at most that many requests
+     *      are handled at once and the rest wait in Jetty's queue.
+     * - "virtual": one virtual thread per request, so requests blocked on a slow query do not hold up the others. Falls
+     *      back to the platform pool on a runtime without virtual threads. Handlers may then outnumber connections by
+     *      far; the connection pool's semaphore (db.pool.maxSize) caps how many of them run JDBC at once, which also
+     *      bounds how many carrier threads can be pinned inside the driver's synchronized code.
+     */
+    private static ThreadPool createThreadPool() {
+        String mode = System.getProperty("server.threadMode", "platform");
+        if ("virtual".equals(mode)){
+            if (LoomUtil.INSTANCE.getLoomAvailable()){
+                return new LoomThreadPool("JettyServerThreadPool");
+            }
+            System.out.println("Virtual threads are not available on this runtime, using platform threads");
+        }else if (!"platform".equals(mode)){
+            throw new IllegalArgumentException("server.threadMode must be platform or virtual: " + mode);
+        }
+        QueuedThreadPool threadPool = new QueuedThreadPool(Integer.getInteger("server.maxThreads", 250), 8, 60000);
+        threadPool.setName("JettyServerThreadPool");
+        return threadPool;
+    }
+
     /**
      * This is an example handler for an example endpoint.
      * @param context The Javalin Context object manages information about both the HTTP request and response.
@@ -62,18 +128,15 @@ public class SocialMediaController {
      * - The registration will be successful if and only if the username is not blank, the password is at least 4 characters long, and an Account with that username does not already exist. 
      *      If all these conditions are met, the response body should contain a JSON of the Account, including its account_id. The response status should be 200 OK, which is the default. The new account should be persisted to the database.
      * - If the registration is not successful, the response status should be 400. (Client error)
+     * - If the request body is larger than server.maxJsonBodyBytes (16KB), the response status should be 413. (Content too large)
      * 
      * @param ctx the context object handles information HTTP requests and generates responses within Javalin. It will
      *            be available to this method automatically thanks to the app.post method.
-     * @throws JsonProcessingException will be thrown if there is an issue converting JSON into an object.
+     * @throws IOException will be thrown if there is an issue converting JSON into an object, or the body is too large.
      */
-    private void userRegistration(Context ctx) throws JsonProcessingException{
-        //retrieve the json string from the request body
-        String jsonString = ctx.body();
-
-        //utilize jackson to convert the json string to an account object
-        ObjectMapper om = new ObjectMapper();
-        Account account = om.readValue(jsonString, Account.class);
+    private void userRegistration(Context ctx) throws IOException{
+        //utilize the shared jackson codec to parse an account object straight from the request body
+        Account account = JsonCodec.getInstance().readAccount(jsonBody(ctx));
 
         //Attempt registration
         account = accountService.addNewAccount(account);
@@ -82,8 +145,8 @@ public class SocialMediaController {
             ctx.status(400);
         }else{
             //successful account creation
-            //return the account as the response body, but also have Javalin convert it to JSON
-            ctx.json(account);
+            //return the account as the response body, written as JSON by the hand-written serializer
+            accountJson(ctx, account);
         }
     }
 
@@ -96,18 +159,15 @@ public class SocialMediaController {
      * - The login will be successful if and only if the username and password provided in the request body JSON match a real account existing on the database. 
      *      If successful, the response body should contain a JSON of the account in the response body, including its account_id. The response status should be 200 OK, which is the default.
      * - If the login is not successful, the response status should be 401. (Unauthorized)
+     * - If the request body is larger than server.maxJsonBodyBytes (16KB), the response status should be 413. (Content too large)
      * 
      * @param ctx the context object handles information HTTP requests and generates responses within Javalin. It will
      *            be available to this method automatically thanks to the app.post method.
-     * @throws JsonProcessingException will be thrown if there is an issue converting JSON into an object.
+     * @throws IOException will be thrown if there is an issue converting JSON into an object, or the body is too large.
      */
-    private void userLogin(Context ctx) throws JsonProcessingException{
-        //retrieve the json string from the request body
-        String jsonString = ctx.body();
-
-        //utilize jackson to convert the json string to an account object
-        ObjectMapper om = new ObjectMapper();
-        Account account = om.readValue(jsonString, Account.class);
+    private void userLogin(Context ctx) throws IOException{
+        //utilize the shared jackson codec to parse an account object straight from the request body
+        Account account = JsonCodec.getInstance().readAccount(jsonBody(ctx));
 
         //Attempt login
         account = accountService.loginWithAccount(account);
@@ -116,8 +176,8 @@ public class SocialMediaController {
             ctx.status(401);
         }else{
             //successful login
-            //return the account as the response body, but also have Javalin convert it to JSON
-            ctx.json(account);
+            //return the account as the response body, written as JSON by the hand-written serializer
+            accountJson(ctx, account);
         }
     }
 
@@ -131,18 +191,16 @@ public class SocialMediaController {
      *      and posted_by refers to a real, existing user. If successful, the response body should contain a JSON of the message, including its message_id. 
      *      The response status should be 200, which is the default. The new message should be persisted to the database.
      * - If the creation of the message is not successful, the response status should be 400. (Client error)
+     * - If write-behind ingestion is enabled and its queue is full, the response status is 503. (Service unavailable)
+     * - If the request body is larger than server.maxJsonBodyBytes (16KB), the response status should be 413. (Content too large)
      * 
      * @param ctx the context object handles information HTTP requests and generates responses within Javalin. It will
      *            be available to this method automatically thanks to the app.post method.
-     * @throws JsonProcessingException will be thrown if there is an issue converting JSON into an object.
+     * @throws IOException will be thrown if there is an issue converting JSON into an object, or the body is too large.
      */
-    private void postNewMessage(Context ctx) throws JsonProcessingException{
-        //retrieve the json string from the request body
-        String jsonString = ctx.body();
-
-        //utilize jackson to convert the json string to an message object
-        ObjectMapper om = new ObjectMapper();
-        Message message = om.readValue(jsonString, Message.class);
+    private void postNewMessage(Context ctx) throws IOException{
+        //utilize the shared jackson codec to parse a message object straight from the request body
+        Message message = JsonCodec.getInstance().readMessage(jsonBody(ctx));
 
         //Attempt to post the message
         message = messageService.addMessage(message);
@@ -156,6 +214,35 @@ public class SocialMediaController {
         }
     }
 
+    /**
+     * As an importer, I should be able to create many messages at once on the endpoint POST localhost:8080/messages/batch. The request body
+     *      will contain a JSON array of messages, none of which contain a message_id.
+     * 
+     * - Each message is validated with the same rules as POST localhost:8080/messages. The response body should contain a JSON array with one
+     *      result per message, in request order: a status of 200 and the created message including its message_id, or a status of 400 and no message.
+     *      The response status should be 200, which is the default, even if some messages were invalid. A null item is an invalid message.
+     * - If the body is not an array, or contains more than 1000 messages, the response status should be 400. (Client error)
+     * 
+     * @param ctx the context object handles information HTTP requests and generates responses within Javalin. It will
+     *            be available to this method automatically thanks to the app.post method.
+     */
+    private void postNewMessages(Context ctx){
+        //utilize the shared jackson codec to convert the json string to a list of message objects
+        List<Message> messages;
+        try {
+            messages = JsonCodec.getInstance().readMessages(ctx.body());
+        } catch (JsonProcessingException e) {
+            //the body was not a JSON array of messages
+            ctx.status(400);
+            return;
+        }
+        if ((messages == null) || (messages.size() > MessageService.MAX_BATCH_SIZE)){
+            ctx.status(400);
+            return;
+        }
+        ctx.json(messageService.addMessages(messages));
+    }
+
     /** 
      * ## 4: Our API should be able to retrieve all messages.
      * 
@@ -163,12 +250,37 @@ public class SocialMediaController {
      * 
      * - The response body should contain a JSON representation of a list containing all messages retrieved from the database. 
      *      It is expected for the list to simply be empty if there are no messages. The response status should always be 200, which is the default.
+     * - If the "after" or "limit" query parameters are given, the response is instead a single page of messages ordered by message_id,
+     *      along with the next_cursor to pass as "after" for the following page. Invalid parameters respond with 400.
+     * - If the "since" or "until" query parameters are given, the response is a single page of the messages whose time_posted_epoch is
+     *      at or after since and before until, ordered by time_posted_epoch then message_id. The following page is fetched by passing
+     *      next_since as "since" and next_cursor as "after".
+     * - If the "stream" query parameter is true, the full list is written to the response row by row as it is read from the database.
+     * - If the "ids" query parameter is given as a comma separated list of message_ids, the response body should contain a JSON list of just
+     *      those messages that exist, in request order. More than 100 ids, or ids that are not integers, respond with 400.
      * 
      * @param ctx the context object handles information HTTP requests and generates responses within Javalin. It will
      *            be available to this method automatically thanks to the app.get method.
+     * @throws IOException will be thrown if the streamed response cannot be written.
      */
-    private void getAllMessages(Context ctx){
-        ctx.json(messageService.getAllMessages());
+    private void getAllMessages(Context ctx) throws IOException{
+        if (ctx.queryParam("ids") != null){
+            getMessagesByIds(ctx);
+            return;
+        }
+        if ("true".equals(ctx.queryParam("stream"))){
+            streamAllMessages(ctx);
+            return;
+        }
+        if (isTimeRangeRequest(ctx)){
+            ctx.json(messageService.getMessagesPageBetween(rangeSince(ctx), rangeUntil(ctx), pageCursor(ctx), pageLimit(ctx)));
+            return;
+        }
+        if (isPageRequest(ctx)){
+            ctx.json(messageService.getMessagesPage(pageCursor(ctx), pageLimit(ctx)));
+            return;
+        }
+        messagesJson(ctx, messageService.getAllMessages());
     }
 
     /** 
@@ -178,14 +290,24 @@ public class SocialMediaController {
      * 
      * - The response body should contain a JSON representation of the message identified by the message_id. It is expected for 
      *      the response body to simply be empty if there is no such message. The response status should always be 200, which is the default.
+     * - A found message is sent with an ETag. If the request's If-None-Match header carries the current ETag, the response status is 304
+     *      with an empty body, answered without reading the message.
      * 
      * @param ctx the context object handles information HTTP requests and generates responses within Javalin. It will
      *            be available to this method automatically thanks to the app.get method.
+     * @throws IOException will be thrown if the response cannot be written.
      */
-    private void getMessageById(Context ctx){
-        Message message = messageService.getMessageById(Integer.parseInt(ctx.pathParam("message_id")));
-        if (message != null){
-            ctx.json(message);
+    private void getMessageById(Context ctx) throws IOException{
+        int message_id = Integer.parseInt(ctx.pathParam("message_id"));
+        if (notModified(ctx, messageService.getMessageEtag(message_id))){
+            return;
+        }
+        //served from cached JSON bytes, so a popular message is not serialized again on every read
+        EncodedJson json = messageService.getEncodedMessageById(message_id);
+        if (json != null){
+            ctx.header(Header.ETAG, json.getEtag());
+            ctx.contentType(ContentType.APPLICATION_JSON);
+            ctx.outputStream().write(json.getBytes());
         }
     }
 
@@ -219,18 +341,15 @@ public class SocialMediaController {
      *      If the update is successful, the response body should contain the full updated message (including message_id, posted_by, message_text, and time_posted_epoch), 
      *      and the response status should be 200, which is the default. The message existing on the database should have the updated message_text.
      * - If the update of the message is not successful for any reason, the response status should be 400. (Client error)
+     * - If the request body is larger than server.maxJsonBodyBytes (16KB), the response status should be 413. (Content too large)
      * 
      * @param ctx the context object handles information HTTP requests and generates responses within Javalin. It will
      *            be available to this method automatically thanks to the app.patch method.
-     * @throws JsonProcessingException will be thrown if there is an issue converting JSON into an object.
+     * @throws IOException will be thrown if there is an issue converting JSON into an object, or the body is too large.
      */
-    private void patchUpdateMessageById(Context ctx) throws JsonProcessingException{
-        //retrieve the json string from the request body
-        String jsonString = ctx.body();
-
-        //utilize jackson to convert the json string to an message object
-        ObjectMapper om = new ObjectMapper();
-        Message message = om.readValue(jsonString, Message.class);
+    private void patchUpdateMessageById(Context ctx) throws IOException{
+        //utilize the shared jackson codec to parse a message object straight from the request body
+        Message message = JsonCodec.getInstance().readMessage(jsonBody(ctx));
 
         //Attempt to update message
         message = messageService.updateMessage(Integer.parseInt(ctx.pathParam("message_id")), message);
@@ -251,11 +370,175 @@ public class SocialMediaController {
      * 
      * - The response body should contain a JSON representation of a list containing all messages posted by a particular user, which is retrieved from the database. 
      *      It is expected for the list to simply be empty if there are no messages. The response status should always be 200, which is the default.
+     * - If the "after" or "limit" query parameters are given, the response is instead a single page of messages, as for GET localhost:8080/messages.
+     * - If the "since" or "until" query parameters are given, the response is a single time-range page, as for GET localhost:8080/messages.
+     * - The full list is sent with an ETag that changes whenever one of the account's messages is created, updated or deleted. If the
+     *      request's If-None-Match header carries the current ETag, the response status is 304 with an empty body.
      * 
      * @param ctx the context object handles information HTTP requests and generates responses within Javalin. It will
      *            be available to this method automatically thanks to the app.get method.
+     * @throws IOException will be thrown if the response cannot be written.
+     */
+    private void getMessagesByAccountId(Context ctx) throws IOException{
+        int account_id = Integer.parseInt(ctx.pathParam("account_id"));
+        if (isTimeRangeRequest(ctx)){
+            ctx.json(messageService.getMessagesPageByAccountIdBetween(account_id, rangeSince(ctx), rangeUntil(ctx),
+                    pageCursor(ctx), pageLimit(ctx)));
+            return;
+        }
+        if (isPageRequest(ctx)){
+            ctx.json(messageService.getMessagesPageByAccountId(account_id, pageCursor(ctx), pageLimit(ctx)));
+            return;
+        }
+        String etag = messageService.getAccountMessagesEtag(account_id);
+        if (notModified(ctx, etag)){
+            return;
+        }
+        ctx.header(Header.ETAG, etag);
+        messagesJson(ctx, messageService.getAllMessagesByAccountId(account_id));
+    }
+
+    /**
+     * Answers GET localhost:8080/messages?ids=1,2,3 with the messages that exist, so a feed needs one request instead of one per message.
+     */
+    private void getMessagesByIds(Context ctx) throws IOException{
+        String[] values = ctx.queryParam("ids").split(",");
+        if (values.length > MessageService.MAX_MULTI_GET_IDS){
+            ctx.status(400);
+            return;
+        }
+        List<Integer> message_ids = new ArrayList<>(values.length);
+        try {
+            for (String value : values){
+                if (!value.isBlank()){
+                    message_ids.add(Integer.parseInt(value.trim()));
+                }
+            }
+        } catch (NumberFormatException e) {
+            ctx.status(400);
+            return;
+        }
+        messagesJson(ctx, messageService.getMessagesByIds(message_ids));
+    }
+
+    /**
+     * Answers a conditional GET: if the request's If-None-Match lists the current ETag, responds 304 with the tag and no
+     * body. Tags are compared weakly, as If-None-Match requires, so a W/ prefix added by a proxy still matches.
+     *
+     * @return true if the response is complete.
+     */
+    private boolean notModified(Context ctx, String etag){
+        String ifNoneMatch = ctx.header(Header.IF_NONE_MATCH);
+        if (ifNoneMatch == null){
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")){
+            tag = tag.trim();
+            if (tag.startsWith("W/")){
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)){
+                ctx.status(304);
+                ctx.header(Header.ETAG, etag);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes an account with the hand-written serializer, which is much cheaper than ctx.json's reflective one.
+     */
+    private void accountJson(Context ctx, Account account) throws IOException{
+        ctx.contentType(ContentType.APPLICATION_JSON);
+        DirectJsonWriter.writeAccount(account, ctx.outputStream());
+    }
+
+    /**
+     * Writes a list of messages with the hand-written serializer.
+     */
+    private void messagesJson(Context ctx, List<Message> messages) throws IOException{
+        ctx.contentType(ContentType.APPLICATION_JSON);
+        DirectJsonWriter.writeMessages(messages, ctx.outputStream());
+    }
+
+    /**
+     * Writes every message as one JSON array directly to the response output stream, so memory use does not grow with
+     * the number of messages and the client starts receiving data before the scan is finished.
+     */
+    private void streamAllMessages(Context ctx) throws IOException{
+        ctx.contentType(ContentType.APPLICATION_JSON);
+        JsonGenerator generator = JsonCodec.getInstance().getFactory().createGenerator(ctx.outputStream());
+        generator.writeStartArray();
+        messageService.forEachMessage(message -> {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("message_id", message.getMessage_id());
+                generator.writeNumberField("posted_by", message.getPosted_by());
+                generator.writeStringField("message_text", message.getMessage_text());
+                generator.writeNumberField("time_posted_epoch", message.getTime_posted_epoch());
+                generator.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    /**
+     * Gives the JSON parser the raw request body stream instead of a String copy of it. Bodies larger than
+     * MAX_JSON_BODY_BYTES are refused with 413: up front if the Content-Length header says so, otherwise as soon as the
+     * parser has read past the limit.
+     */
+    private InputStream jsonBody(Context ctx) throws IOException{
+        if (ctx.req().getContentLengthLong() > MAX_JSON_BODY_BYTES){
+            throw new BoundedInputStream.TooLargeException(MAX_JSON_BODY_BYTES);
+        }
+        return new BoundedInputStream(ctx.bodyInputStream(), MAX_JSON_BODY_BYTES);
+    }
+
+    /**
+     * Listings are paginated only when the client asks for it, so existing clients keep receiving a plain list.
+     */
+    private boolean isPageRequest(Context ctx){
+        return ctx.queryParam("after") != null || ctx.queryParam("limit") != null;
+    }
+
+    private boolean isTimeRangeRequest(Context ctx){
+        return ctx.queryParam("since") != null || ctx.queryParam("until") != null;
+    }
+
+    /**
+     * @return the inclusive lower bound on time_posted_epoch, unbounded if absent, since the column allows negative times.
+     *      Javalin responds 400 if it is not an integer.
+     */
+    private long rangeSince(Context ctx){
+        return ctx.queryParamAsClass("since", Long.class).getOrDefault(Long.MIN_VALUE);
+    }
+
+    /**
+     * @return the exclusive upper bound on time_posted_epoch, unbounded if absent. Javalin responds 400 if it is not an integer.
+     */
+    private long rangeUntil(Context ctx){
+        return ctx.queryParamAsClass("until", Long.class).getOrDefault(Long.MAX_VALUE);
+    }
+
+    /**
+     * @return the "after" cursor, {@code 0} (the first page) if absent. Javalin responds 400 if it is not a non-negative integer.
+     */
+    private int pageCursor(Context ctx){
+        return ctx.queryParamAsClass("after", Integer.class)
+                .check(after -> after >= 0, "after must not be negative")
+                .getOrDefault(0);
+    }
+
+    /**
+     * @return the requested page size. Javalin responds 400 if it is not a positive integer.
      */
-    private void getMessagesByAccountId(Context ctx){
-        ctx.json(messageService.getAllMessagesByAccountId(Integer.parseInt(ctx.pathParam("account_id"))));
+    private int pageLimit(Context ctx){
+        return ctx.queryParamAsClass("limit", Integer.class)
+                .check(limit -> limit > 0, "limit must be positive")
+                .getOrDefault(MessageService.DEFAULT_PAGE_SIZE);
     }
 }
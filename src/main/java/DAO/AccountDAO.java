@@ -4,6 +4,10 @@ import Model.Account;
 import Util.ConnectionUtil;
 
 import java.sql.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 public class AccountDAO {
 
@@ -29,10 +33,62 @@ public class AccountDAO {
             }
         }catch (SQLException e){
             System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
         }
         return false;
     }
 
+    /**
+     * Walks every username in the account table, handing each to the consumer as it is read instead of building a list.
+     * 
+     * @param consumer called once per username, on the calling thread.
+     */
+    public void forEachUsername(Consumer<String> consumer){
+        Connection connection = ConnectionUtil.getConnection();
+        try {
+            //Write SQL logic here
+            String sql = "SELECT username FROM account;";
+            PreparedStatement preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setFetchSize(500);
+
+            ResultSet rs = preparedStatement.executeQuery();
+            while (rs.next()){
+                consumer.accept(rs.getString("username"));
+            }
+            rs.close();
+        }catch (SQLException e){
+            System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
+        }
+    }
+
+    /**
+     * Walks every account_id in the account table, handing each to the consumer as it is read.
+     * 
+     * @param consumer called once per account_id, on the calling thread.
+     */
+    public void forEachAccountId(IntConsumer consumer){
+        Connection connection = ConnectionUtil.getConnection();
+        try {
+            //Write SQL logic here
+            String sql = "SELECT account_id FROM account;";
+            PreparedStatement preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setFetchSize(500);
+
+            ResultSet rs = preparedStatement.executeQuery();
+            while (rs.next()){
+                consumer.accept(rs.getInt("account_id"));
+            }
+            rs.close();
+        }catch (SQLException e){
+            System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
+        }
+    }
+
     /**
      * Checks database to see if an account_id is in use.
      * 
@@ -55,15 +111,54 @@ public class AccountDAO {
             }
         }catch (SQLException e){
             System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
         }
         return false;
     }
     
+    /**
+     * SQLState reported by H2 when an insert violates a unique constraint.
+     */
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    /**
+     * Checks many account_ids in a single query.
+     * 
+     * @param account_ids the ids to check for.
+     * @return the subset of account_ids that are in the account table.
+     */
+    public Set<Integer> getExistingAccountIds(Integer[] account_ids){
+        Connection connection = ConnectionUtil.getConnection();
+        Set<Integer> existing = new HashSet<>();
+        try {
+            //Write SQL logic here
+            String sql = "SELECT account_id FROM account WHERE account_id = ANY(?);";
+            PreparedStatement preparedStatement = connection.prepareStatement(sql);
+
+            //write preparedStatement's setString and setInt methods here.
+            preparedStatement.setObject(1, account_ids);
+
+            ResultSet rs = preparedStatement.executeQuery();
+            while (rs.next()){
+                existing.add(rs.getInt("account_id"));
+            }
+        }catch (SQLException e){
+            System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
+        }
+        return existing;
+    }
+
     /**
      * ## 1: Our API should be able to process new User registrations.
      * 
+     * The unique constraint on account.username decides whether the username is taken, so registration is a single
+     * INSERT attempt and two concurrent registrations of the same username cannot both succeed.
+     * 
      * @param account an object modeling an Account. The account object does not contain an account_id.
-     * @return account with generated account_id if successful, null otherwise.
+     * @return account with generated account_id if successful, null otherwise (including when the username is taken).
      */
     public Account insertAccount(Account account){
         Connection connection = ConnectionUtil.getConnection();
@@ -83,7 +178,12 @@ public class AccountDAO {
                 return new Account(generated_account_id, account.getUsername(), account.getPassword());
             }
         }catch (SQLException e){
-            System.out.println(e.getMessage());
+            //a duplicate username is an expected outcome, not an error worth logging
+            if (!UNIQUE_VIOLATION.equals(e.getSQLState())){
+                System.out.println(e.getMessage());
+            }
+        }finally{
+            ConnectionUtil.closeConnection(connection);
         }
         return null;
     }
@@ -111,6 +211,8 @@ public class AccountDAO {
             }
         }catch (SQLException e){
             System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
         }
         return null;
     }
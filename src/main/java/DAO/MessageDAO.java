@@ -3,6 +3,7 @@ package DAO;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import Model.Message;
 import Util.ConnectionUtil;
@@ -28,6 +29,117 @@ public class MessageDAO {
             }
         }catch (SQLException e){
             System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
+        }
+        return messages;
+    }
+
+    /**
+     * Number of rows the driver is asked to fetch at a time while streaming.
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Walks every message in message_id order, handing each row to the consumer as it is read instead of building a list.
+     * The scan runs with H2's lazy query execution so the result is not materialized up front either.
+     *
+     * @param consumer called once per message, on the calling thread, while the connection is held.
+     */
+    public void forEachMessage(Consumer<Message> consumer){
+        Connection connection = ConnectionUtil.getConnection();
+        try {
+            connection.prepareStatement("SET LAZY_QUERY_EXECUTION TRUE;").executeUpdate();
+            try {
+                //Write SQL logic here
+                String sql = "SELECT * FROM message ORDER BY message_id;";
+                PreparedStatement preparedStatement = connection.prepareStatement(sql);
+                preparedStatement.setFetchSize(STREAM_FETCH_SIZE);
+
+                ResultSet rs = preparedStatement.executeQuery();
+                while (rs.next()){
+                    consumer.accept(new Message(rs.getInt("message_id"), rs.getInt("posted_by"), rs.getString("message_text"), rs.getLong("time_posted_epoch")));
+                }
+                rs.close();
+            }finally{
+                //the setting belongs to the pooled session, so put it back before returning the connection
+                connection.prepareStatement("SET LAZY_QUERY_EXECUTION FALSE;").executeUpdate();
+            }
+        }catch (SQLException e){
+            System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
+        }
+    }
+
+    /**
+     * Keyset pagination over all messages: seeks past the cursor on the primary key index and reads at most
+     * {@code limit} rows, instead of scanning and materializing the whole table.
+     *
+     * @param after only messages with a message_id greater than this are returned.
+     * @param limit maximum number of messages to return.
+     * @return up to {@code limit} messages in ascending message_id order.
+     */
+    public List<Message> getMessagesAfter(int after, int limit){
+        Connection connection = ConnectionUtil.getConnection();
+        List<Message> messages = new ArrayList<>();
+        try {
+            //Write SQL logic here
+            String sql = "SELECT * FROM message WHERE message_id > ? ORDER BY message_id LIMIT ?;";
+            PreparedStatement preparedStatement = connection.prepareStatement(sql);
+
+            //write PreparedStatement setString and setInt methods here.
+            preparedStatement.setInt(1, after);
+            preparedStatement.setInt(2, limit);
+
+            ResultSet rs = preparedStatement.executeQuery();
+            while (rs.next()){
+                messages.add(new Message(rs.getInt("message_id"), rs.getInt("posted_by"), rs.getString("message_text"), rs.getLong("time_posted_epoch")));
+            }
+        }catch (SQLException e){
+            System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
+        }
+        return messages;
+    }
+
+    /**
+     * Keyset pagination over a time range of all messages, ordered by (time_posted_epoch, message_id). The leading
+     * time_posted_epoch condition is a range scan on the message_time_posted_idx index, which already returns rows in
+     * page order.
+     *
+     * @param since only messages posted at or after this time are returned.
+     * @param until only messages posted before this time are returned.
+     * @param after cursor within {@code since}: messages posted exactly at {@code since} must have a message_id greater
+     *      than this. {@code 0} includes all of them.
+     * @param limit maximum number of messages to return.
+     * @return up to {@code limit} messages in ascending (time_posted_epoch, message_id) order.
+     */
+    public List<Message> getMessagesBetween(long since, long until, int after, int limit){
+        Connection connection = ConnectionUtil.getConnection();
+        List<Message> messages = new ArrayList<>();
+        try {
+            //Write SQL logic here
+            String sql = "SELECT * FROM message WHERE time_posted_epoch >= ? AND time_posted_epoch < ? " +
+                    "AND (time_posted_epoch > ? OR message_id > ?) ORDER BY time_posted_epoch, message_id LIMIT ?;";
+            PreparedStatement preparedStatement = connection.prepareStatement(sql);
+
+            //write PreparedStatement setString and setInt methods here.
+            preparedStatement.setLong(1, since);
+            preparedStatement.setLong(2, until);
+            preparedStatement.setLong(3, since);
+            preparedStatement.setInt(4, after);
+            preparedStatement.setInt(5, limit);
+
+            ResultSet rs = preparedStatement.executeQuery();
+            while (rs.next()){
+                messages.add(new Message(rs.getInt("message_id"), rs.getInt("posted_by"), rs.getString("message_text"), rs.getLong("time_posted_epoch")));
+            }
+        }catch (SQLException e){
+            System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
         }
         return messages;
     }
@@ -48,8 +160,7 @@ public class MessageDAO {
             //write preparedStatement's setString and setInt methods here.
             preparedStatement.setInt(1, message.getPosted_by());
             preparedStatement.setString(2, message.getMessage_text());
-            //preparedStatement.setLong(3, System.currentTimeMillis());
-            preparedStatement.setLong(3, 1669947792);
+            preparedStatement.setLong(3, message.getTime_posted_epoch());
 
             preparedStatement.executeUpdate();
             ResultSet pkeyResultSet = preparedStatement.getGeneratedKeys();
@@ -59,6 +170,59 @@ public class MessageDAO {
             }
         }catch (SQLException e){
             System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
+        }
+        return null;
+    }
+
+    /**
+     * Inserts several messages with one JDBC batch inside a single transaction, so they share one commit.
+     *
+     * @param messages objects modelling Messages. The message objects do not contain a message_id.
+     * @return the messages with their generated message_ids, in the same order, if all were inserted. null if the batch
+     *      failed, in which case none of the messages were inserted.
+     */
+    public List<Message> insertMessages(List<Message> messages){
+        Connection connection = ConnectionUtil.getConnection();
+        try {
+            connection.setAutoCommit(false);
+
+            //Write SQL logic here.
+            String sql = "INSERT INTO message (posted_by, message_text, time_posted_epoch) VALUES (?, ?, ?);" ;
+            PreparedStatement preparedStatement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+
+            //write preparedStatement's setString and setInt methods here.
+            for (Message message : messages){
+                preparedStatement.setInt(1, message.getPosted_by());
+                preparedStatement.setString(2, message.getMessage_text());
+                preparedStatement.setLong(3, message.getTime_posted_epoch());
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+
+            List<Message> inserted = new ArrayList<>(messages.size());
+            ResultSet pkeyResultSet = preparedStatement.getGeneratedKeys();
+            for (Message message : messages){
+                if (!pkeyResultSet.next()){
+                    connection.rollback();
+                    return null;
+                }
+                int generated_message_id = (int) pkeyResultSet.getLong(1);
+                inserted.add(new Message(generated_message_id, message.getPosted_by(), message.getMessage_text(), message.getTime_posted_epoch()));
+            }
+            connection.commit();
+            return inserted;
+        }catch (SQLException e){
+            System.out.println(e.getMessage());
+            try {
+                connection.rollback();
+            }catch (SQLException rollbackException){
+                System.out.println(rollbackException.getMessage());
+            }
+        }finally{
+            //returning the connection to the pool restores auto-commit
+            ConnectionUtil.closeConnection(connection);
         }
         return null;
     }
@@ -86,80 +250,117 @@ public class MessageDAO {
             }
         }catch(SQLException e){
             System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
         }
         return null;
     }
 
+    /**
+     * Retrieves several messages by id in a single query.
+     *
+     * @param message_ids the ids to look up.
+     * @return the messages that exist, in no particular order.
+     */
+    public List<Message> getMessagesByIds(Integer[] message_ids){
+        Connection connection = ConnectionUtil.getConnection();
+        List<Message> messages = new ArrayList<>();
+        try {
+            //Write SQL logic here
+            String sql = "SELECT * FROM message WHERE message_id = ANY(?);";
+            PreparedStatement preparedStatement = connection.prepareStatement(sql);
+
+            //write preparedStatement's setString and setInt methods here.
+            preparedStatement.setObject(1, message_ids);
+
+            ResultSet rs = preparedStatement.executeQuery();
+            while (rs.next()){
+                messages.add(new Message(rs.getInt("message_id"), rs.getInt("posted_by"), rs.getString("message_text"), rs.getLong("time_posted_epoch")));
+            }
+        }catch(SQLException e){
+            System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
+        }
+        return messages;
+    }
+
     /**
      * ## 6: Our API should be able to delete a message identified by a message ID.
      * 
+     * The delete and the read of the deleted row happen in a single statement through H2's OLD TABLE data change delta table,
+     * so the returned message is exactly the row that was removed.
+     *
      * @param message_id of message to be deleted from message table.
-     * @return number of rows deleted from message table if successful, {@code -1} otherwise.
+     * @return message that was deleted from message table if it existed, null otherwise.
      */
-    public int deleteMessageById(int message_id){
+    public Message deleteMessageById(int message_id){
         Connection connection = ConnectionUtil.getConnection();
         try {
             //Write SQL logic here
-            String sql = "DELETE FROM message WHERE message_id = ?;";
+            String sql = "SELECT * FROM OLD TABLE (DELETE FROM message WHERE message_id = ?);";
             PreparedStatement preparedStatement = connection.prepareStatement(sql);
 
             //write PreparedStatement setString and setInt methods here.
             preparedStatement.setInt(1, message_id);
 
-            preparedStatement.executeUpdate();
-            ResultSet pkeyResultSet = preparedStatement.getGeneratedKeys();
-            if (pkeyResultSet.next()){
-                return pkeyResultSet.getInt(1);
+            ResultSet rs = preparedStatement.executeQuery();
+            if (rs.next()){
+                return new Message(rs.getInt("message_id"), rs.getInt("posted_by"), rs.getString("message_text"), rs.getLong("time_posted_epoch"));
             }
         }catch(SQLException e){
             System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
         }
-        return -1;
+        return null;
     }
 
     /**
      * ## 7: Our API should be able to update a message text identified by a message ID.
      * 
      * If the update is successful, the response body should contain the full updated message (including message_id, posted_by, message_text, and time_posted_epoch).
+     * The update and the read of the updated row happen in a single statement through H2's FINAL TABLE data change delta table.
      *
      * @param id a message ID.
      * @param message a message object. the message object does not contain a message ID.
-     * @return number of rows updated from message table if successful, {@code -1} otherwise.
+     * @return the full updated message if the message existed, null otherwise.
      */
-    public int updateMessage(int id, Message message){
+    public Message updateMessage(int id, Message message){
         Connection connection = ConnectionUtil.getConnection();
         try {
             //Write SQL logic here
-            String sql = "UPDATE message SET message_text = ? WHERE message_id = ?;";
+            String sql = "SELECT * FROM FINAL TABLE (UPDATE message SET message_text = ? WHERE message_id = ?);";
             PreparedStatement preparedStatement = connection.prepareStatement(sql);
 
             //write PreparedStatement setString and setInt methods here.
             preparedStatement.setString(1, message.getMessage_text());
             preparedStatement.setInt(2, id);
 
-            preparedStatement.executeUpdate();
-            ResultSet pkeyResultSet = preparedStatement.getGeneratedKeys();
-            if (pkeyResultSet.next()){
-                return pkeyResultSet.getInt(1);
+            ResultSet rs = preparedStatement.executeQuery();
+            if (rs.next()){
+                return new Message(rs.getInt("message_id"), rs.getInt("posted_by"), rs.getString("message_text"), rs.getLong("time_posted_epoch"));
             }
         }catch(SQLException e){
             System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
         }
-        return -1;
+        return null;
     }
 
     /**
      * ## 8: Our API should be able to retrieve all messages written by a particular user.
      *
      * @param account_id
-     * @return all messages specified account_id.
+     * @return all messages specified account_id, in message_id order.
      */
     public List<Message> getAllMessagesByAccountId(int account_id){
         Connection connection = ConnectionUtil.getConnection();
         List<Message> messages = new ArrayList<>();
         try {
             //Write SQL logic here
-            String sql = "SELECT * FROM message WHERE posted_by = ?;";
+            String sql = "SELECT * FROM message WHERE posted_by = ? ORDER BY message_id;";
             PreparedStatement preparedStatement = connection.prepareStatement(sql);
 
             //write PreparedStatement setString and setInt methods here.
@@ -171,9 +372,83 @@ public class MessageDAO {
             }
         }catch (SQLException e){
             System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
         }
         return messages;
     }
 
-}
+    /**
+     * Keyset pagination over the messages of one account.
+     *
+     * @param account_id the account whose messages are returned.
+     * @param after only messages with a message_id greater than this are returned.
+     * @param limit maximum number of messages to return.
+     * @return up to {@code limit} messages posted by the account, in ascending message_id order.
+     */
+    public List<Message> getMessagesByAccountIdAfter(int account_id, int after, int limit){
+        Connection connection = ConnectionUtil.getConnection();
+        List<Message> messages = new ArrayList<>();
+        try {
+            //Write SQL logic here
+            String sql = "SELECT * FROM message WHERE posted_by = ? AND message_id > ? ORDER BY message_id LIMIT ?;";
+            PreparedStatement preparedStatement = connection.prepareStatement(sql);
+
+            //write PreparedStatement setString and setInt methods here.
+            preparedStatement.setInt(1, account_id);
+            preparedStatement.setInt(2, after);
+            preparedStatement.setInt(3, limit);
+
+            ResultSet rs = preparedStatement.executeQuery();
+            while (rs.next()){
+                messages.add(new Message(rs.getInt("message_id"), rs.getInt("posted_by"), rs.getString("message_text"), rs.getLong("time_posted_epoch")));
+            }
+        }catch (SQLException e){
+            System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
+        }
+        return messages;
+    }
+
+    /**
+     * Keyset pagination over a time range of one account's messages, as {@link #getMessagesBetween(long, long, int, int)}
+     * but scanning the message_posted_by_time_idx index.
+     *
+     * @param account_id the account whose messages are returned.
+     * @param since only messages posted at or after this time are returned.
+     * @param until only messages posted before this time are returned.
+     * @param after cursor within {@code since}, or {@code 0}.
+     * @param limit maximum number of messages to return.
+     * @return up to {@code limit} messages posted by the account, in ascending (time_posted_epoch, message_id) order.
+     */
+    public List<Message> getMessagesByAccountIdBetween(int account_id, long since, long until, int after, int limit){
+        Connection connection = ConnectionUtil.getConnection();
+        List<Message> messages = new ArrayList<>();
+        try {
+            //Write SQL logic here
+            String sql = "SELECT * FROM message WHERE posted_by = ? AND time_posted_epoch >= ? AND time_posted_epoch < ? " +
+                    "AND (time_posted_epoch > ? OR message_id > ?) ORDER BY time_posted_epoch, message_id LIMIT ?;";
+            PreparedStatement preparedStatement = connection.prepareStatement(sql);
+
+            //write PreparedStatement setString and setInt methods here.
+            preparedStatement.setInt(1, account_id);
+            preparedStatement.setLong(2, since);
+            preparedStatement.setLong(3, until);
+            preparedStatement.setLong(4, since);
+            preparedStatement.setInt(5, after);
+            preparedStatement.setInt(6, limit);
+
+            ResultSet rs = preparedStatement.executeQuery();
+            while (rs.next()){
+                messages.add(new Message(rs.getInt("message_id"), rs.getInt("posted_by"), rs.getString("message_text"), rs.getLong("time_posted_epoch")));
+            }
+        }catch (SQLException e){
+            System.out.println(e.getMessage());
+        }finally{
+            ConnectionUtil.closeConnection(connection);
+        }
+        return messages;
+    }
 
+}
@@ -1,3 +1,4 @@
+import Controller.AsyncSocialMediaController;
 import Controller.SocialMediaController;
 import io.javalin.Javalin;
 
@@ -7,7 +8,9 @@ import io.javalin.Javalin;
  */
 public class Main {
     public static void main(String[] args) {
-        SocialMediaController controller = new SocialMediaController();
+        //-Dserver.async=true runs handlers on the bounded executor of AsyncSocialMediaController
+        SocialMediaController controller = Boolean.getBoolean("server.async")
+                ? new AsyncSocialMediaController() : new SocialMediaController();
         Javalin app = controller.startAPI();
         app.start(8080);
     }
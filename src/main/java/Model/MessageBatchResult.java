@@ -0,0 +1,82 @@
+package Model;
+
+/**
+ * This is a class that models the outcome of one message in a batch creation request.
+ */
+public class MessageBatchResult {
+    /**
+     * The status this message would have received from POST /messages: 200 if it was created, 400 if it was invalid.
+     */
+    public int status;
+    /**
+     * The created message including its generated message_id, or null if it was not created.
+     */
+    public Message message;
+    /**
+     * A default, no-args constructor, as well as correctly formatted getters and setters, are needed for
+     * Jackson Objectmapper to work.
+     */
+    public MessageBatchResult(){
+    }
+    /**
+     * @param status
+     * @param message
+     */
+    public MessageBatchResult(int status, Message message) {
+        this.status = status;
+        this.message = message;
+    }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @return status
+     */
+    public int getStatus() {
+        return status;
+    }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @param status
+     */
+    public void setStatus(int status) {
+        this.status = status;
+    }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @return message
+     */
+    public Message getMessage() {
+        return message;
+    }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @param message
+     */
+    public void setMessage(Message message) {
+        this.message = message;
+    }
+    /**
+     * Overriding the default equals() method adds functionality to tell when two objects are identical, allowing
+     * Assert.assertEquals and List.contains to function.
+     * @param o the other object.
+     * @return true if o is equal to this object.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MessageBatchResult result = (MessageBatchResult) o;
+        return status == result.status
+                && (message == null ? result.message == null : message.equals(result.message));
+    }
+    /**
+     * Overriding the default toString() method allows for easy debugging.
+     * @return a String representation of this class.
+     */
+    @Override
+    public String toString() {
+        return "MessageBatchResult{" +
+                "status=" + status +
+                ", message=" + message +
+                '}';
+    }
+}
@@ -0,0 +1,118 @@
+package Model;
+
+import java.util.List;
+
+/**
+ * This is a class that models one page of a paginated message listing.
+ *
+ * Pages are ordered by message_id. To fetch the next page, pass next_cursor back as the "after" query parameter.
+ * Time-range pages are ordered by (time_posted_epoch, message_id) instead, and the next page also needs next_since
+ * passed back as the "since" query parameter.
+ */
+public class MessagePage {
+    /**
+     * The messages on this page, in ascending message_id order, or (time_posted_epoch, message_id) order for time-range pages.
+     */
+    public List<Message> messages;
+    /**
+     * The message_id to pass as "after" to fetch the next page, or null if this is the last page.
+     */
+    public Integer next_cursor;
+    /**
+     * For time-range pages, the time_posted_epoch to pass as "since" along with next_cursor. null otherwise.
+     */
+    public Long next_since;
+    /**
+     * A default, no-args constructor, as well as correctly formatted getters and setters, are needed for
+     * Jackson Objectmapper to work.
+     */
+    public MessagePage(){
+    }
+    /**
+     * @param messages
+     * @param next_cursor
+     */
+    public MessagePage(List<Message> messages, Integer next_cursor) {
+        this.messages = messages;
+        this.next_cursor = next_cursor;
+    }
+    /**
+     * @param messages
+     * @param next_cursor
+     * @param next_since
+     */
+    public MessagePage(List<Message> messages, Integer next_cursor, Long next_since) {
+        this.messages = messages;
+        this.next_cursor = next_cursor;
+        this.next_since = next_since;
+    }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @return messages
+     */
+    public List<Message> getMessages() {
+        return messages;
+    }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @param messages
+     */
+    public void setMessages(List<Message> messages) {
+        this.messages = messages;
+    }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @return next_cursor
+     */
+    public Integer getNext_cursor() {
+        return next_cursor;
+    }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @param next_cursor
+     */
+    public void setNext_cursor(Integer next_cursor) {
+        this.next_cursor = next_cursor;
+    }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @return next_since
+     */
+    public Long getNext_since() {
+        return next_since;
+    }
+    /**
+     * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
+     * @param next_since
+     */
+    public void setNext_since(Long next_since) {
+        this.next_since = next_since;
+    }
+    /**
+     * Overriding the default equals() method adds functionality to tell when two objects are identical, allowing
+     * Assert.assertEquals and List.contains to function.
+     * @param o the other object.
+     * @return true if o is equal to this object.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MessagePage page = (MessagePage) o;
+        return messages.equals(page.messages)
+                && (next_cursor == null ? page.next_cursor == null : next_cursor.equals(page.next_cursor))
+                && (next_since == null ? page.next_since == null : next_since.equals(page.next_since));
+    }
+    /**
+     * Overriding the default toString() method allows for easy debugging.
+     * @return a String representation of this class.
+     */
+    @Override
+    public String toString() {
+        return "MessagePage{" +
+                "messages=" + messages +
+                ", next_cursor=" + next_cursor +
+                ", next_since=" + next_since +
+                '}';
+    }
+}
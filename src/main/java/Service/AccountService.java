@@ -1,17 +1,43 @@
 package Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import DAO.AccountDAO;
 import Model.Account;
+import Util.BloomFilter;
+import Util.ConcurrentBitmap;
 
 public class AccountService {
 
     AccountDAO accountDAO;
 
     /**
-     * No-args constructor for a accountService instantiates a plain accountDAO.
+     * Bloom filter of every username in the account table. A username the filter has never seen is certainly free, so
+     * registration only asks the database about usernames the filter reports as possibly taken. Sized by
+     * accounts.bloom.expectedInsertions and accounts.bloom.falsePositiveRate.
+     */
+    BloomFilter usernameFilter;
+
+    /**
+     * Bitmap of every account_id in the account table, so message creation can validate posted_by without a query.
+     */
+    ConcurrentBitmap accountIds;
+
+    /**
+     * No-args constructor for a accountService instantiates a plain accountDAO, and loads the existing usernames and
+     * account ids into the username filter and account id bitmap.
      */
     public AccountService(){
         accountDAO = new AccountDAO();
+        usernameFilter = new BloomFilter(Long.getLong("accounts.bloom.expectedInsertions", 100000),
+                Double.parseDouble(System.getProperty("accounts.bloom.falsePositiveRate", "0.01")));
+        accountDAO.forEachUsername(usernameFilter::put);
+        accountIds = new ConcurrentBitmap();
+        accountDAO.forEachAccountId(accountIds::add);
     }
 
     /**
@@ -25,10 +51,89 @@ public class AccountService {
      */
     public Account addNewAccount(Account account){
         //checks used for account creation
-        if ((account.getUsername().isBlank()) || (account.getPassword().length() < 4) || (accountDAO.checkAccountExistsByUsername(account.getUsername()))){
+        if ((account.getUsername().isBlank()) || (account.getPassword().length() < 4)){
             return null;
         }
-        return accountDAO.insertAccount(account);
+        //only usernames the filter may have seen are worth checking before the insert. The unique constraint still
+        //rejects any duplicate that gets past this, in which case the DAO returns null.
+        if (usernameExists(account.getUsername())){
+            return null;
+        }
+        Account added = accountDAO.insertAccount(account);
+        if (added != null){
+            usernameFilter.put(added.getUsername());
+            accountIds.add(added.getAccount_id());
+        }
+        return added;
+    }
+
+    /**
+     * Checks whether a username is taken, without touching the database when the username filter has never seen it.
+     * 
+     * @param username to check for.
+     * @return {@code true} if an account with this username exists.
+     */
+    public boolean usernameExists(String username){
+        return usernameFilter.mightContain(username) && accountDAO.checkAccountExistsByUsername(username);
+    }
+
+    /**
+     * Checks whether an account_id refers to a real account. Every account registered through this service, or present
+     * at startup, is answered from the account id bitmap. Only ids missing from the bitmap are confirmed against the
+     * database, which also picks up accounts created outside the API.
+     * 
+     * @param account_id to check for.
+     * @return {@code true} if the account exists.
+     */
+    public boolean accountExists(int account_id){
+        if (accountIds.contains(account_id)){
+            return true;
+        }
+        if (account_id > 0 && accountDAO.checkAccountExistsById(account_id)){
+            accountIds.add(account_id);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks many account_ids at once. Ids in the account id bitmap are answered directly, and all remaining ids are
+     * confirmed with a single query.
+     * 
+     * @param account_ids the ids to check for.
+     * @return the subset of account_ids that refer to real accounts.
+     */
+    public Set<Integer> findExistingAccountIds(Collection<Integer> account_ids){
+        Set<Integer> existing = new HashSet<>();
+        List<Integer> unknown = new ArrayList<>();
+        for (int account_id : new HashSet<>(account_ids)){
+            if (accountIds.contains(account_id)){
+                existing.add(account_id);
+            }else if (account_id > 0){
+                unknown.add(account_id);
+            }
+        }
+        if (!unknown.isEmpty()){
+            for (int account_id : accountDAO.getExistingAccountIds(unknown.toArray(new Integer[0]))){
+                accountIds.add(account_id);
+                existing.add(account_id);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * @return the account id bitmap, for its cardinality.
+     */
+    public ConcurrentBitmap getAccountIds(){
+        return accountIds;
+    }
+
+    /**
+     * @return the username filter, for its fill ratio and estimated false-positive rate.
+     */
+    public BloomFilter getUsernameFilter(){
+        return usernameFilter;
     }
     
     /**
@@ -0,0 +1,210 @@
+package Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import DAO.MessageDAO;
+import Model.Message;
+
+/**
+ * Write-behind ingestion of new messages with group commit.
+ *
+ * Callers submit already validated messages to a bounded queue and get a future back. A single writer thread drains
+ * the queue into batches of up to batchSize messages, waiting at most lingerMillis for a batch to fill, and inserts
+ * each batch with one JDBC batch and one commit. Every caller's future completes with its generated message_id once
+ * its batch has committed.
+ *
+ * Every future completes: with a failure if its batch threw, even an Error, and with a RejectedExecutionException if
+ * the message was still queued when the writer stopped.
+ */
+public class MessageIngestor {
+
+    private final MessageDAO messageDAO;
+    private final BlockingQueue<PendingMessage> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long offerTimeoutMillis;
+    private final Thread writer;
+    private volatile boolean running = true;
+    /**
+     * Set by the writer just before it rejects what is left in the queue and exits.
+     */
+    private volatile boolean stopped;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong messageCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * @param messageDAO used by the writer thread to insert batches.
+     * @param queueCapacity maximum number of messages waiting to be written.
+     * @param batchSize maximum number of messages inserted per batch and commit.
+     * @param lingerMillis how long the writer waits for more messages before committing a partial batch.
+     * @param offerTimeoutMillis how long submit waits for room in a full queue before rejecting the message.
+     */
+    public MessageIngestor(MessageDAO messageDAO, int queueCapacity, int batchSize, long lingerMillis, long offerTimeoutMillis){
+        this.messageDAO = messageDAO;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.writer = new Thread(this::writeLoop, "message-ingestor");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a validated message for insertion.
+     *
+     * @param message a message that has already passed validation. The message object does not contain a message_id.
+     * @return a future completed with the inserted message, including its message_id, or with null if it could not be
+     *      inserted. The future fails with a {@link RejectedExecutionException} if the queue stayed full or the ingestor
+     *      has been shut down.
+     */
+    public CompletableFuture<Message> submit(Message message){
+        PendingMessage pending = new PendingMessage(message);
+        try {
+            if (!running || !queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)){
+                rejectedCount.incrementAndGet();
+                pending.future.completeExceptionally(new RejectedExecutionException("Message ingestion queue is full"));
+            }else if (stopped){
+                //the offer raced the writer's exit, so nothing else will take the message out of the queue
+                rejectQueued();
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+        }
+        return pending.future;
+    }
+
+    private void writeLoop(){
+        try {
+            writeBatches();
+        }finally{
+            running = false;
+            stopped = true;
+            rejectQueued();
+        }
+    }
+
+    private void writeBatches(){
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()){
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null){
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - batch.size());
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize){
+                    PendingMessage next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null){
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            }catch (InterruptedException e){
+                //nothing interrupts the writer on purpose; flush whatever has been collected and keep going
+            }
+            if (!batch.isEmpty()){
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Inserts a batch in one transaction. If the batch fails as a whole, for example because one message's author
+     * disappeared, the messages are retried one by one so a single bad message does not fail its neighbours.
+     */
+    private void flush(List<PendingMessage> batch){
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch){
+            messages.add(pending.message);
+        }
+        try {
+            List<Message> inserted = messageDAO.insertMessages(messages);
+            batchCount.incrementAndGet();
+            if (inserted != null){
+                messageCount.addAndGet(inserted.size());
+                for (int i = 0; i < batch.size(); i++){
+                    batch.get(i).future.complete(inserted.get(i));
+                }
+                return;
+            }
+            for (PendingMessage pending : batch){
+                Message inserted_message = messageDAO.insertMessage(pending.message);
+                if (inserted_message != null){
+                    messageCount.incrementAndGet();
+                }
+                pending.future.complete(inserted_message);
+            }
+        }catch (Throwable e){
+            //futures already completed by a partial retry keep their result
+            for (PendingMessage pending : batch){
+                pending.future.completeExceptionally(e);
+            }
+            if (e instanceof Error){
+                throw (Error) e;
+            }
+        }
+    }
+
+    /**
+     * Fails every message still in the queue once the writer has stopped.
+     */
+    private void rejectQueued(){
+        PendingMessage pending;
+        while ((pending = queue.poll()) != null){
+            rejectedCount.incrementAndGet();
+            pending.future.completeExceptionally(new RejectedExecutionException("Message ingestion has stopped"));
+        }
+    }
+
+    /**
+     * Stops accepting messages, writes out everything already queued and waits for the writer to finish. The writer is
+     * not interrupted, since interrupting a thread in the middle of H2 file I/O closes the database file.
+     */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join();
+    }
+
+    /**
+     * @return number of messages waiting to be written.
+     */
+    public int getQueueDepth(){
+        return queue.size();
+    }
+
+    public long getBatchCount(){
+        return batchCount.get();
+    }
+
+    public long getMessageCount(){
+        return messageCount.get();
+    }
+
+    public long getRejectedCount(){
+        return rejectedCount.get();
+    }
+
+    private static final class PendingMessage {
+        final Message message;
+        final CompletableFuture<Message> future = new CompletableFuture<>();
+
+        PendingMessage(Message message){
+            this.message = message;
+        }
+    }
+}
@@ -1,22 +1,137 @@
 package Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
-import DAO.AccountDAO;
 import DAO.MessageDAO;
 import Model.Message;
+import Model.MessageBatchResult;
+import Model.MessagePage;
+import Util.BoundedCache;
+import Util.DirectJsonWriter;
+import Util.EncodedJson;
+import Util.SingleFlight;
+import Util.VersionCounters;
 
 public class MessageService {
 
+    /**
+     * Page size used when a paginated request does not specify a limit.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    /**
+     * Largest page size a client may ask for; larger limits are clamped to this.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+    /**
+     * Largest number of messages accepted by a single batch creation request.
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+    /**
+     * Largest number of ids accepted by a single multi-get request.
+     */
+    public static final int MAX_MULTI_GET_IDS = 100;
+
     MessageDAO messageDAO;
-    AccountDAO accountDAO;
+    AccountService accountService;
+
+    /**
+     * Read-through cache in front of messageDAO.getMessageById. Sized by cache.messages.maxSize, with an optional
+     * cache.messages.ttlMillis expiry.
+     */
+    BoundedCache<Integer, Message> messageCache;
+
+    /**
+     * Per-account cache of the lists returned by messageDAO.getAllMessagesByAccountId, kept up to date by addMessage,
+     * updateMessage and deleteMessageById. Each list weighs one unit per message, so cache.timelines.maxMessages caps the
+     * number of messages held across all accounts.
+     */
+    BoundedCache<Integer, List<Message>> timelineCache;
+
+    /**
+     * The serialized JSON, with its ETag, of the most read messages, so GET /messages/{message_id} can write cached bytes
+     * instead of serializing the same Message again. Bounded by cache.encodedMessages.maxBytes of heap rather than an
+     * entry count, and invalidated together with messageCache.
+     */
+    BoundedCache<Integer, EncodedJson> encodedMessages;
+
+    /**
+     * Versions of each message and of each account's list of messages, bumped by every insert, update and delete. ETags
+     * are built from them, so a conditional GET can be answered without reading or serializing anything.
+     */
+    VersionCounters messageVersions;
+    VersionCounters accountVersions;
+
+    /**
+     * Negative cache of message_ids known not to exist, filled by lookups that found nothing and by deletes, so repeated
+     * reads, updates and deletes of missing ids skip the database. Entries expire after cache.absentMessages.ttlMillis and
+     * are removed as soon as a message with that id is created.
+     */
+    BoundedCache<Integer, Boolean> absentMessages;
+
+    /**
+     * Coalesce concurrent cache misses for the same message_id, or the same account's timeline, into one DAO call.
+     */
+    SingleFlight<Integer, Message> messageFlights;
+    SingleFlight<Integer, List<Message>> timelineFlights;
+
+    /**
+     * Write-behind ingestion for addMessage, or null when messages are inserted directly. Enabled with
+     * messages.writeBehind.enabled=true and tuned with the other messages.writeBehind.* properties.
+     */
+    MessageIngestor messageIngestor;
+
+    /**
+     * How long addMessage waits for its write-behind batch to commit, from messages.writeBehind.awaitTimeoutMillis.
+     */
+    long ingestionTimeoutMillis;
 
     /**
-     * No-args constructor for a messageService instantiates a plain messageDAO.
+     * No-args constructor for a messageService instantiates a plain messageDAO and its own accountService.
      */
     public MessageService(){
+        this(new AccountService());
+    }
+
+    /**
+     * Constructor for a messageService that validates posted_by against an existing accountService, so accounts it
+     * registers are immediately valid authors.
+     * @param accountService
+     */
+    public MessageService(AccountService accountService){
         messageDAO = new MessageDAO();
-        accountDAO = new AccountDAO();
+        this.accountService = accountService;
+        messageCache = new BoundedCache<>(Integer.getInteger("cache.messages.maxSize", 10000),
+                Long.getLong("cache.messages.ttlMillis", 0));
+        timelineCache = new BoundedCache<>(Long.getLong("cache.timelines.maxMessages", 100000),
+                Long.getLong("cache.timelines.ttlMillis", 0), (account_id, messages) -> messages.size() + 1);
+        encodedMessages = new BoundedCache<>(Long.getLong("cache.encodedMessages.maxBytes", 8 * 1024 * 1024),
+                Long.getLong("cache.messages.ttlMillis", 0), (message_id, json) -> json.getWeight());
+        absentMessages = new BoundedCache<>(Integer.getInteger("cache.absentMessages.maxSize", 10000),
+                Long.getLong("cache.absentMessages.ttlMillis", 30000));
+        messageVersions = new VersionCounters(Integer.getInteger("etag.messageStripes", 16384));
+        accountVersions = new VersionCounters(Integer.getInteger("etag.accountStripes", 4096));
+        messageFlights = new SingleFlight<>();
+        timelineFlights = new SingleFlight<>();
+        if (Boolean.getBoolean("messages.writeBehind.enabled")){
+            messageIngestor = new MessageIngestor(messageDAO,
+                    Integer.getInteger("messages.writeBehind.queueCapacity", 10000),
+                    Integer.getInteger("messages.writeBehind.batchSize", 100),
+                    Long.getLong("messages.writeBehind.lingerMillis", 5),
+                    Long.getLong("messages.writeBehind.offerTimeoutMillis", 1000));
+            ingestionTimeoutMillis = Long.getLong("messages.writeBehind.awaitTimeoutMillis", 30000);
+        }
     }
 
     /**
@@ -27,14 +142,118 @@ public class MessageService {
      * - The creation of the message will be successful if and only if the message_text is not blank, is not over 255 characters, 
      *      and posted_by refers to a real, existing user. If successful, the new message should be persisted to the database.
      *
+     * - With write-behind ingestion enabled, the validated message is queued and this call waits until the batch it was
+     *      written in has committed.
+     *
      * @param message an object representing a new Message.
      * @return the newly added message if the add operation was successful, including the message_id. Return null if message invalid.
+     * @throws java.util.concurrent.RejectedExecutionException if write-behind ingestion is enabled and its queue is full,
+     *      or the batch did not commit within messages.writeBehind.awaitTimeoutMillis.
      */
     public Message addMessage(Message message){
-        if ((message.getMessage_text().isBlank()) || (message.getMessage_text().length() > 255) || !(accountDAO.checkAccountExistsById(message.getPosted_by()))){
+        if (!isValidMessageText(message.getMessage_text()) || !(accountService.accountExists(message.getPosted_by()))){
             return null;
         }
-        return messageDAO.insertMessage(message);
+        if (messageIngestor != null){
+            return awaitIngestion(message);
+        }
+        Message added = messageDAO.insertMessage(message);
+        if (added != null){
+            messageAdded(added);
+        }
+        return added;
+    }
+
+    /**
+     * Creates many messages at once, applying the same rules as {@link #addMessage(Message)} to each one.
+     * 
+     * - All posted_by ids are validated together with at most one query, and the valid messages are inserted with one JDBC
+     *      batch in one transaction. If that transaction fails, the valid messages are retried one at a time so that one
+     *      message cannot fail the others.
+     *
+     * @param messages objects representing new Messages, at most {@link #MAX_BATCH_SIZE}.
+     * @return one result per message, in the same order: status 200 with the created message, or status 400 if it was invalid
+     *      or null.
+     */
+    public List<MessageBatchResult> addMessages(List<Message> messages){
+        List<Integer> posted_by_ids = new ArrayList<>(messages.size());
+        for (Message message : messages){
+            //a JSON array may hold null items, which are invalid messages rather than a reason to fail the batch
+            if (message != null){
+                posted_by_ids.add(message.getPosted_by());
+            }
+        }
+        Set<Integer> existingAccounts = accountService.findExistingAccountIds(posted_by_ids);
+
+        List<Message> valid = new ArrayList<>();
+        for (Message message : messages){
+            if (message != null && isValidMessageText(message.getMessage_text())
+                    && existingAccounts.contains(message.getPosted_by())){
+                valid.add(message);
+            }
+        }
+        List<Message> inserted = valid.isEmpty() ? valid : messageDAO.insertMessages(valid);
+        if (inserted == null){
+            inserted = new ArrayList<>(valid.size());
+            for (Message message : valid){
+                inserted.add(messageDAO.insertMessage(message));
+            }
+        }
+
+        List<MessageBatchResult> results = new ArrayList<>(messages.size());
+        int next_inserted = 0;
+        for (Message message : messages){
+            Message added = null;
+            if (next_inserted < valid.size() && valid.get(next_inserted) == message){
+                added = inserted.get(next_inserted++);
+            }
+            if (added != null){
+                messageAdded(added);
+            }
+            results.add(new MessageBatchResult(added != null ? 200 : 400, added));
+        }
+        return results;
+    }
+
+    /**
+     * @return true if the text is not null, not blank and not over 255 characters.
+     */
+    private static boolean isValidMessageText(String message_text){
+        return (message_text != null) && !(message_text.isBlank()) && (message_text.length() <= 255);
+    }
+
+    /**
+     * Waits for a write-behind insert to commit, unwrapping the queue-full rejection so it reaches the controller as is.
+     * A batch that has not committed within the timeout is reported as a rejection too, although it may still commit.
+     *
+     * The caches and versions are updated as soon as the batch commits, on the writer thread, so that happens even when
+     * the caller has stopped waiting. The timeout is applied to a copy, which leaves that step attached to the real result.
+     */
+    private Message awaitIngestion(Message message) {
+        CompletableFuture<Message> committed = messageIngestor.submit(message).thenApply(added -> {
+            if (added != null){
+                messageAdded(added);
+            }
+            return added;
+        });
+        try {
+            return committed.copy().orTimeout(ingestionTimeoutMillis, TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RejectedExecutionException){
+                throw (RejectedExecutionException) e.getCause();
+            }
+            if (e.getCause() instanceof TimeoutException){
+                throw new RejectedExecutionException("Message ingestion timed out", e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the write-behind ingestor, for its queue depth, or null if write-behind ingestion is disabled.
+     */
+    public MessageIngestor getMessageIngestor() {
+        return messageIngestor;
     }
 
     /**
@@ -48,17 +267,138 @@ public class MessageService {
         return messageDAO.getAllMessages();
     }
 
+    /**
+     * Streams all messages, in message_id order, to the consumer without holding them in memory.
+     *
+     * @param consumer called once per message.
+     */
+    public void forEachMessage(Consumer<Message> consumer) {
+        messageDAO.forEachMessage(consumer);
+    }
+
+    /**
+     * Returns one page of all messages, ordered by message_id.
+     *
+     * @param after cursor from a previous page's next_cursor, or {@code 0} for the first page.
+     * @param limit requested page size, clamped to between 1 and {@link #MAX_PAGE_SIZE}.
+     * @return the page, whose next_cursor is null when there are no more messages.
+     */
+    public MessagePage getMessagesPage(int after, int limit) {
+        int pageSize = clampPageSize(limit);
+        //read one extra row to learn whether another page follows
+        return toPage(messageDAO.getMessagesAfter(after, pageSize + 1), pageSize);
+    }
+
     /**
      * ## 5: Our API should be able to retrieve a message by its ID.
      * 
      * - The response body should contain a JSON representation of the message identified by the message_id. It is expected for 
      *      the response body to simply be empty if there is no such message.
      * 
+     * - Messages are served from the message cache when possible. Updates and deletes invalidate the cached entry before
+     *      returning, so a read that follows them never sees the old text.
+     * 
      * @param message_id a message ID.
      * @return message object if successful, null otherwise.
      */
     public Message getMessageById(int message_id){
-        return messageDAO.getMessageById(message_id);
+        Message message = messageCache.get(message_id);
+        if ((message != null) || (absentMessages.get(message_id) != null)){
+            return message;
+        }
+        //concurrent misses for the same id share one query
+        return messageFlights.execute(message_id, () -> {
+            long stamp = messageCache.stamp();
+            long absentStamp = absentMessages.stamp();
+            Message loaded = messageDAO.getMessageById(message_id);
+            //each put is skipped if a write touched that cache while we were reading
+            if (loaded != null){
+                messageCache.putIfUnchanged(message_id, loaded, stamp);
+            }else{
+                absentMessages.putIfUnchanged(message_id, Boolean.TRUE, absentStamp);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Retrieves a message already serialized as JSON, for writing straight to a response.
+     *
+     * @param message_id a message ID.
+     * @return the message's JSON bytes and the ETag of the version they were read at, or null if there is no such message.
+     */
+    public EncodedJson getEncodedMessageById(int message_id){
+        EncodedJson json = encodedMessages.get(message_id);
+        if (json != null){
+            return json;
+        }
+        //stamp first, then version: bytes are only cached if no write has invalidated them since the version was read,
+        //and messageChanged bumps the version before invalidating, so a cached entry's tag always matches its bytes
+        long stamp = encodedMessages.stamp();
+        String etag = messageVersions.etag(message_id);
+        Message message = getMessageById(message_id);
+        if (message == null){
+            return null;
+        }
+        json = new EncodedJson(DirectJsonWriter.toBytes(message), etag);
+        encodedMessages.putIfUnchanged(message_id, json, stamp);
+        return json;
+    }
+
+    /**
+     * @return the ETag GET /messages/{message_id} currently responds with. Computed from version counters alone.
+     */
+    public String getMessageEtag(int message_id){
+        return messageVersions.etag(message_id);
+    }
+
+    /**
+     * @return the ETag of the account's full list of messages. Read it before the list, so that if a write lands in
+     *      between, the tag is older than the list and the next conditional request gets the list again.
+     */
+    public String getAccountMessagesEtag(int account_id){
+        return accountVersions.etag(account_id);
+    }
+
+    /**
+     * Retrieves several messages at once. Ids found in the message cache are answered from it, and all misses are read
+     * with a single query and cached.
+     * 
+     * @param message_ids message IDs, at most {@link #MAX_MULTI_GET_IDS}.
+     * @return the messages that exist, in the order their ids were first requested. Missing ids are skipped.
+     */
+    public List<Message> getMessagesByIds(List<Integer> message_ids){
+        Map<Integer, Message> found = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        for (int message_id : new LinkedHashSet<>(message_ids)){
+            Message message = messageCache.get(message_id);
+            if (message != null){
+                found.put(message_id, message);
+            }else if (absentMessages.get(message_id) == null){
+                misses.add(message_id);
+            }
+        }
+        if (!misses.isEmpty()){
+            long stamp = messageCache.stamp();
+            long absentStamp = absentMessages.stamp();
+            for (Message message : messageDAO.getMessagesByIds(misses.toArray(new Integer[0]))){
+                found.put(message.getMessage_id(), message);
+                messageCache.putIfUnchanged(message.getMessage_id(), message, stamp);
+            }
+            for (int message_id : misses){
+                if (!found.containsKey(message_id)){
+                    absentMessages.putIfUnchanged(message_id, Boolean.TRUE, absentStamp);
+                }
+            }
+        }
+        List<Message> messages = new ArrayList<>(found.size());
+        for (int message_id : new LinkedHashSet<>(message_ids)){
+            Message message = found.get(message_id);
+            if (message != null){
+                messages.add(message);
+            }
+        }
+        return messages;
     }
 
     /**
@@ -73,12 +413,21 @@ public class MessageService {
      * @return message that was deleted from message table if it existed, null otherwise.
      */
     public Message deleteMessageById(int message_id){
-        Message old_message = messageDAO.getMessageById(message_id);
-        if (old_message == null){
+        if (absentMessages.get(message_id) != null){
             return null;
         }
-        messageDAO.deleteMessageById(message_id);
-        return old_message;
+        //a miss may race an insert of the same id, so it only marks the id absent if nothing was written to it since
+        long absentStamp = absentMessages.stamp();
+        Message deleted = messageDAO.deleteMessageById(message_id);
+        messageChanged(message_id);
+        if (deleted == null){
+            absentMessages.putIfUnchanged(message_id, Boolean.TRUE, absentStamp);
+        }else{
+            absentMessages.put(message_id, Boolean.TRUE);
+            timelineChanged(deleted.getPosted_by(), messages -> removeMessage(messages, message_id));
+            accountVersions.bump(deleted.getPosted_by());
+        }
+        return deleted;
     }
 
     /**
@@ -95,13 +444,19 @@ public class MessageService {
      * @return the newly updated message if the update operation was successful. Return null if the update operation was unsuccessful.
      */
     public Message updateMessage(int message_id, Message message){
-        Message old_message = messageDAO.getMessageById(message_id);
-        if ((old_message == null) || (message.getMessage_text().isBlank()) || (message.getMessage_text().length() > 255)){
+        if (!isValidMessageText(message.getMessage_text()) || (absentMessages.get(message_id) != null)){
             return null;
         }
-        messageDAO.updateMessage(message_id, message);
-        Message new_message = messageDAO.getMessageById(message_id);
-        return new_message;
+        //a missing message_id updates no rows, so the DAO returns null
+        Message updated = messageDAO.updateMessage(message_id, message);
+        messageChanged(message_id);
+        if (updated != null){
+            //concurrent updates of one message may reach here in either order, so the list is dropped and reloaded
+            //rather than patched with a value that may already be older than the database's
+            timelineChanged(updated.getPosted_by(), messages -> null);
+            accountVersions.bump(updated.getPosted_by());
+        }
+        return updated;
     }
 
     /**
@@ -110,10 +465,195 @@ public class MessageService {
      * - The response body should contain a JSON representation of a list containing all messages posted by a particular user, which is retrieved from the database. 
      *      It is expected for the list to simply be empty if there are no messages.
      *
+     * - Lists are served from the timeline cache when possible. New and deleted messages are patched into the cached list of the
+     *      affected account in place rather than dropping it, so a busy account stays cached while it posts. An update drops the
+     *      list, since concurrent updates of one message can finish in any order.
+     *
      * @param account_id of the account to get posted messages from.
-     * @return all messages posted by a specific account.
+     * @return all messages posted by a specific account, in message_id order. The list is shared and must not be modified.
      */
     public List<Message> getAllMessagesByAccountId(int account_id) {
-        return messageDAO.getAllMessagesByAccountId(account_id);
+        List<Message> messages = timelineCache.get(account_id);
+        if (messages != null){
+            return messages;
+        }
+        //concurrent misses for the same account share one query
+        return timelineFlights.execute(account_id, () -> {
+            long stamp = timelineCache.stamp();
+            List<Message> loaded = List.copyOf(messageDAO.getAllMessagesByAccountId(account_id));
+            timelineCache.putIfUnchanged(account_id, loaded, stamp);
+            return loaded;
+        });
+    }
+
+    /**
+     * Called after a message is created: clears any negative entry for its id, appends it to its author's cached timeline
+     * and bumps the versions behind both ETags.
+     */
+    private void messageAdded(Message added) {
+        absentMessages.invalidate(added.getMessage_id());
+        messageVersions.bump(added.getMessage_id());
+        timelineChanged(added.getPosted_by(), messages -> appendMessage(messages, added));
+        accountVersions.bump(added.getPosted_by());
+    }
+
+    /**
+     * Called after a message is updated or deleted: drops the cached copy and detaches any lookup already in flight, so
+     * later readers go back to the database, and bumps the message's version.
+     *
+     * The order matters for ETags: a reader that sees the new version must not find the old message in messageCache,
+     * and the serialized bytes are dropped last so they are never cached under a version older than their contents.
+     */
+    private void messageChanged(int message_id) {
+        messageCache.invalidate(message_id);
+        messageFlights.forget(message_id);
+        messageVersions.bump(message_id);
+        encodedMessages.invalidate(message_id);
+    }
+
+    /**
+     * Called after a write to an account's messages: patches the cached timeline in place, or drops it if the change
+     * returns null, and detaches any load already in flight, so later readers do not share a load that may have missed
+     * the write.
+     */
+    private void timelineChanged(int account_id, UnaryOperator<List<Message>> change) {
+        timelineCache.update(account_id, change);
+        timelineFlights.forget(account_id);
+    }
+
+    /**
+     * @return the cache of serialized messages, for its hit/miss/eviction statistics and weight in bytes.
+     */
+    public BoundedCache<Integer, EncodedJson> getEncodedMessages() {
+        return encodedMessages;
+    }
+
+    /**
+     * @return the negative cache of missing message_ids, for its hit/miss/eviction statistics.
+     */
+    public BoundedCache<Integer, Boolean> getAbsentMessages() {
+        return absentMessages;
+    }
+
+    /**
+     * @return the coalescing layer in front of getMessageById, for its executed/coalesced counters.
+     */
+    public SingleFlight<Integer, Message> getMessageFlights() {
+        return messageFlights;
+    }
+
+    /**
+     * @return the coalescing layer in front of getAllMessagesByAccountId, for its executed/coalesced counters.
+     */
+    public SingleFlight<Integer, List<Message>> getTimelineFlights() {
+        return timelineFlights;
+    }
+
+    /**
+     * @return the per-account message list cache, for its hit/miss/eviction statistics.
+     */
+    public BoundedCache<Integer, List<Message>> getTimelineCache() {
+        return timelineCache;
+    }
+
+    /**
+     * Cached timelines are immutable, so every change produces a new list.
+     *
+     * The insert commits before the timeline is patched, so a reader that missed in between may already have cached a
+     * list containing the new message, and two inserts may be patched in either order. The message is therefore only
+     * added if absent, at its place in message_id order.
+     */
+    private static List<Message> appendMessage(List<Message> messages, Message added) {
+        int index = messages.size();
+        while (index > 0 && messages.get(index - 1).getMessage_id() >= added.getMessage_id()){
+            if (messages.get(index - 1).getMessage_id() == added.getMessage_id()){
+                return messages;
+            }
+            index--;
+        }
+        List<Message> appended = new ArrayList<>(messages.size() + 1);
+        appended.addAll(messages);
+        appended.add(index, added);
+        return List.copyOf(appended);
+    }
+
+    private static List<Message> removeMessage(List<Message> messages, int message_id) {
+        List<Message> removed = new ArrayList<>(messages.size());
+        for (Message message : messages){
+            if (message.getMessage_id() != message_id){
+                removed.add(message);
+            }
+        }
+        return List.copyOf(removed);
+    }
+
+    /**
+     * @return the cache in front of getMessageById, for its hit/miss/eviction statistics.
+     */
+    public BoundedCache<Integer, Message> getMessageCache() {
+        return messageCache;
+    }
+
+    /**
+     * Returns one page of the messages posted by an account, ordered by message_id.
+     *
+     * @param account_id of the account to get posted messages from.
+     * @param after cursor from a previous page's next_cursor, or {@code 0} for the first page.
+     * @param limit requested page size, clamped to between 1 and {@link #MAX_PAGE_SIZE}.
+     * @return the page, whose next_cursor is null when there are no more messages.
+     */
+    public MessagePage getMessagesPageByAccountId(int account_id, int after, int limit) {
+        int pageSize = clampPageSize(limit);
+        return toPage(messageDAO.getMessagesByAccountIdAfter(account_id, after, pageSize + 1), pageSize);
+    }
+
+    /**
+     * Returns one page of the messages posted in [since, until), ordered by (time_posted_epoch, message_id), so a client
+     * can sync incrementally by asking for everything since the last time it saw.
+     *
+     * @param since earliest time_posted_epoch included, or a previous page's next_since.
+     * @param until time_posted_epoch before which messages are included.
+     * @param after a previous page's next_cursor, or {@code 0} for the first page.
+     * @param limit requested page size, clamped to between 1 and {@link #MAX_PAGE_SIZE}.
+     * @return the page, whose next_cursor and next_since are null when there are no more messages.
+     */
+    public MessagePage getMessagesPageBetween(long since, long until, int after, int limit) {
+        int pageSize = clampPageSize(limit);
+        return toTimePage(messageDAO.getMessagesBetween(since, until, after, pageSize + 1), pageSize);
+    }
+
+    /**
+     * As {@link #getMessagesPageBetween(long, long, int, int)}, restricted to the messages posted by one account.
+     */
+    public MessagePage getMessagesPageByAccountIdBetween(int account_id, long since, long until, int after, int limit) {
+        int pageSize = clampPageSize(limit);
+        return toTimePage(messageDAO.getMessagesByAccountIdBetween(account_id, since, until, after, pageSize + 1), pageSize);
+    }
+
+    private static int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * @param rows up to pageSize + 1 rows; the extra row only signals that another page exists.
+     */
+    private static MessagePage toPage(List<Message> rows, int pageSize) {
+        if (rows.size() <= pageSize){
+            return new MessagePage(rows, null);
+        }
+        List<Message> messages = rows.subList(0, pageSize);
+        return new MessagePage(messages, messages.get(pageSize - 1).getMessage_id());
+    }
+
+    /**
+     * @param rows up to pageSize + 1 rows in (time_posted_epoch, message_id) order.
+     */
+    private static MessagePage toTimePage(List<Message> rows, int pageSize) {
+        if (rows.size() <= pageSize){
+            return new MessagePage(rows, null, null);
+        }
+        List<Message> messages = rows.subList(0, pageSize);
+        Message last = messages.get(pageSize - 1);
+        return new MessagePage(messages, last.getMessage_id(), last.getTime_posted_epoch());
     }
 }
@@ -0,0 +1,135 @@
+package Util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter of strings. {@link #mightContain(String)} never returns false for a string that was added,
+ * and returns true for a string that was not added with roughly the false-positive rate the filter was sized for.
+ *
+ * Bits are set with compare-and-set, so concurrent adds never block each other or readers.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final double targetFalsePositiveRate;
+    private final AtomicLong setBits = new AtomicLong();
+
+    /**
+     * @param expectedInsertions number of strings the filter is expected to hold.
+     * @param falsePositiveRate desired false-positive rate once that many strings have been added, e.g. {@code 0.01}.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate){
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1){
+            throw new IllegalArgumentException("Invalid Bloom filter sizing: expectedInsertions=" + expectedInsertions
+                    + ", falsePositiveRate=" + falsePositiveRate);
+        }
+        //optimal sizing: m = -n ln(p) / ln(2)^2 bits and k = m/n ln(2) hash functions
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+        this.bitCount = words.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.targetFalsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Adds a string to the filter.
+     */
+    public void put(String value){
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++){
+            setBit(index(h1 + i * h2));
+        }
+    }
+
+    /**
+     * @return false if the string was definitely never added, true if it may have been.
+     */
+    public boolean mightContain(String value){
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++){
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(int combinedHash){
+        //flip negative hashes so every index is in range
+        return (combinedHash < 0 ? ~combinedHash : combinedHash) % bitCount;
+    }
+
+    private void setBit(long bit){
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0){
+                return;
+            }
+        } while (!words.compareAndSet(word, current, current | mask));
+        setBits.incrementAndGet();
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with a murmur3 mix so both halves are usable as independent hashes.
+     */
+    private static long hash(String value){
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)){
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * @return fraction of bits that are set. The false-positive rate is roughly this raised to the number of hash functions.
+     */
+    public double getFillRatio(){
+        return (double) setBits.get() / bitCount;
+    }
+
+    /**
+     * @return current estimated false-positive rate based on the fill ratio.
+     */
+    public double getEstimatedFalsePositiveRate(){
+        return Math.pow(getFillRatio(), hashCount);
+    }
+
+    public double getTargetFalsePositiveRate(){
+        return targetFalsePositiveRate;
+    }
+
+    public long getBitCount(){
+        return bitCount;
+    }
+
+    public int getHashCount(){
+        return hashCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BloomFilter{" +
+                "bits=" + bitCount +
+                ", hashes=" + hashCount +
+                ", fillRatio=" + getFillRatio() +
+                '}';
+    }
+}
@@ -0,0 +1,308 @@
+package Util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntBiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * A thread-safe, weight-bounded cache with an optional time-to-live and hit/miss/eviction counters.
+ *
+ * Eviction is segmented LRU, which takes access frequency into account: new entries start in a probation segment, and
+ * an entry that is read again while on probation is promoted to a protected segment holding up to 80% of the weight.
+ * Entries are evicted from the least recently used end of probation first, so a burst of one-off reads cannot push
+ * out entries that are read repeatedly. By default every entry weighs 1, which makes the bound an entry count.
+ *
+ * Read-through callers should use {@link #stamp()} and {@link #putIfUnchanged(Object, Object, long)}: take a stamp
+ * before loading a value from the database, and the value is only cached if no write to the same key happened in the
+ * meantime. That way a slow reader can never put back a value that an update or delete has already invalidated, while
+ * writes to other keys do not stop it from caching. The most recent writes are tracked per key; once a write drops out
+ * of that window, loads stamped before it are conservatively refused.
+ *
+ * @param <K> key type.
+ * @param <V> value type.
+ */
+public class BoundedCache<K, V> {
+
+    /**
+     * Number of recently written keys whose last write is remembered for {@link #putIfUnchanged(Object, Object, long)}.
+     */
+    private static final int MAX_TRACKED_WRITES = 4096;
+
+    private final long maxWeight;
+    private final long maxProtectedWeight;
+    private final long ttlNanos;
+    private final ToIntBiFunction<K, V> weigher;
+    private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long probationWeight;
+    private long protectedWeight;
+    private long modifications;
+    /**
+     * The write number of each recently written key, oldest first, and the newest write number that has been forgotten.
+     */
+    private final LinkedHashMap<K, Long> recentWrites = new LinkedHashMap<>();
+    private long forgottenWrite;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize maximum number of entries.
+     * @param ttlMillis how long an entry stays valid after it is written, {@code 0} for no expiry.
+     */
+    public BoundedCache(int maxSize, long ttlMillis){
+        this(maxSize, ttlMillis, (key, value) -> 1);
+    }
+
+    /**
+     * @param maxWeight maximum total weight of all entries.
+     * @param ttlMillis how long an entry stays valid after it is written, {@code 0} for no expiry.
+     * @param weigher computes the weight of an entry when it is written; must be at least 1.
+     */
+    public BoundedCache(long maxWeight, long ttlMillis, ToIntBiFunction<K, V> weigher){
+        if (maxWeight < 1 || ttlMillis < 0){
+            throw new IllegalArgumentException("Invalid cache bounds: maxWeight=" + maxWeight + ", ttlMillis=" + ttlMillis);
+        }
+        this.maxWeight = maxWeight;
+        this.maxProtectedWeight = maxWeight * 4 / 5;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.weigher = weigher;
+    }
+
+    /**
+     * @param key the key to look up.
+     * @return the cached value, or null if absent or expired.
+     */
+    public synchronized V get(K key){
+        Entry<V> entry = protectedSegment.get(key);
+        if (entry == null){
+            entry = probation.get(key);
+            if (entry != null && !isExpired(entry, System.nanoTime())){
+                promote(key, entry);
+            }
+        }
+        if (entry == null){
+            misses.increment();
+            return null;
+        }
+        if (isExpired(entry, System.nanoTime())){
+            remove(key);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * @return a stamp to pass to {@link #putIfUnchanged(Object, Object, long)} after loading a value.
+     */
+    public synchronized long stamp(){
+        return modifications;
+    }
+
+    /**
+     * Caches a freshly loaded value, unless the key was written to or invalidated since the stamp was taken, in which
+     * case the value may already be stale and is dropped.
+     *
+     * @return true if the value was cached.
+     */
+    public synchronized boolean putIfUnchanged(K key, V value, long stamp){
+        Long lastWrite = recentWrites.get(key);
+        if (stamp < forgottenWrite || (lastWrite != null && lastWrite > stamp)){
+            return false;
+        }
+        store(key, value);
+        return true;
+    }
+
+    /**
+     * Caches a value unconditionally.
+     */
+    public synchronized void put(K key, V value){
+        written(key);
+        store(key, value);
+    }
+
+    /**
+     * Atomically replaces a cached value with {@code updater.apply(current)}, keeping its place in the cache. Does
+     * nothing if the key is not cached. Either way, loads of the key that started before this call will not be cached.
+     *
+     * @param updater returns the new value, or null to remove the entry.
+     */
+    public synchronized void update(K key, UnaryOperator<V> updater){
+        written(key);
+        Entry<V> entry = protectedSegment.containsKey(key) ? protectedSegment.get(key) : probation.get(key);
+        if (entry == null){
+            return;
+        }
+        V value = updater.apply(entry.value);
+        if (value == null){
+            remove(key);
+            return;
+        }
+        int weight = weigher.applyAsInt(key, value);
+        if (protectedSegment.containsKey(key)){
+            protectedWeight += weight - entry.weight;
+            protectedSegment.put(key, new Entry<>(value, weight, entry.writtenNanos));
+        }else{
+            probationWeight += weight - entry.weight;
+            probation.put(key, new Entry<>(value, weight, entry.writtenNanos));
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * Removes a key, so the next read goes to the database.
+     */
+    public synchronized void invalidate(K key){
+        written(key);
+        remove(key);
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void invalidateAll(){
+        modifications++;
+        recentWrites.clear();
+        forgottenWrite = modifications;
+        probation.clear();
+        protectedSegment.clear();
+        probationWeight = 0;
+        protectedWeight = 0;
+    }
+
+    /**
+     * Records a write to the key, so loads of it that started earlier are not cached.
+     */
+    private void written(K key){
+        modifications++;
+        recentWrites.remove(key);
+        recentWrites.put(key, modifications);
+        if (recentWrites.size() > MAX_TRACKED_WRITES){
+            Iterator<Map.Entry<K, Long>> eldest = recentWrites.entrySet().iterator();
+            forgottenWrite = eldest.next().getValue();
+            eldest.remove();
+        }
+    }
+
+    private void store(K key, V value){
+        remove(key);
+        int weight = weigher.applyAsInt(key, value);
+        probation.put(key, new Entry<>(value, weight, System.nanoTime()));
+        probationWeight += weight;
+        evictIfNeeded();
+    }
+
+    /**
+     * Moves an entry read while on probation into the protected segment, demoting the protected segment's least
+     * recently used entries back to probation if it grows past its share.
+     */
+    private void promote(K key, Entry<V> entry){
+        probation.remove(key);
+        probationWeight -= entry.weight;
+        protectedSegment.put(key, entry);
+        protectedWeight += entry.weight;
+        Iterator<Map.Entry<K, Entry<V>>> eldest = protectedSegment.entrySet().iterator();
+        while (protectedWeight > maxProtectedWeight && protectedSegment.size() > 1){
+            Map.Entry<K, Entry<V>> demoted = eldest.next();
+            eldest.remove();
+            protectedWeight -= demoted.getValue().weight;
+            probation.put(demoted.getKey(), demoted.getValue());
+            probationWeight += demoted.getValue().weight;
+        }
+    }
+
+    private void evictIfNeeded(){
+        while (probationWeight + protectedWeight > maxWeight){
+            LinkedHashMap<K, Entry<V>> segment = probation.isEmpty() ? protectedSegment : probation;
+            Iterator<Map.Entry<K, Entry<V>>> eldest = segment.entrySet().iterator();
+            if (!eldest.hasNext()){
+                return;
+            }
+            Map.Entry<K, Entry<V>> evicted = eldest.next();
+            eldest.remove();
+            if (segment == probation){
+                probationWeight -= evicted.getValue().weight;
+            }else{
+                protectedWeight -= evicted.getValue().weight;
+            }
+            evictions.increment();
+        }
+    }
+
+    private void remove(K key){
+        Entry<V> entry = probation.remove(key);
+        if (entry != null){
+            probationWeight -= entry.weight;
+        }
+        entry = protectedSegment.remove(key);
+        if (entry != null){
+            protectedWeight -= entry.weight;
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now){
+        return ttlNanos > 0 && now - entry.writtenNanos > ttlNanos;
+    }
+
+    /**
+     * @return number of entries currently held, including expired entries that have not been read since.
+     */
+    public synchronized int size(){
+        return probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * @return total weight of the entries currently held.
+     */
+    public synchronized long weight(){
+        return probationWeight + protectedWeight;
+    }
+
+    public long getHitCount(){
+        return hits.sum();
+    }
+
+    public long getMissCount(){
+        return misses.sum();
+    }
+
+    /**
+     * @return number of entries removed because of the weight bound or expiry. Invalidations are not counted.
+     */
+    public long getEvictionCount(){
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedCache{" +
+                "size=" + size() +
+                ", weight=" + weight() +
+                ", maxWeight=" + maxWeight +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                '}';
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final int weight;
+        final long writtenNanos;
+
+        Entry(V value, int weight, long writtenNanos){
+            this.value = value;
+            this.weight = weight;
+            this.writtenNanos = writtenNanos;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package Util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream that fails as soon as more than a fixed number of bytes have been read from it, so a parser reading a
+ * request body straight from the socket stops at the limit instead of consuming an oversized payload.
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long count;
+
+    /**
+     * @param in the stream to read from.
+     * @param maxBytes largest number of bytes that may be read.
+     */
+    public BoundedInputStream(InputStream in, long maxBytes){
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1){
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0){
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    /**
+     * Mark and reset are not supported, since re-reading would be counted twice.
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long n) throws TooLargeException {
+        count += n;
+        if (count > maxBytes){
+            throw new TooLargeException(maxBytes);
+        }
+    }
+
+    /**
+     * Thrown once the stream, or a declared Content-Length, exceeds the limit.
+     */
+    public static class TooLargeException extends IOException {
+        public TooLargeException(long maxBytes){
+            super("Body is larger than " + maxBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package Util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A thread-safe set of non-negative ints stored as a bitmap.
+ *
+ * Like a roaring bitmap, the int range is split into chunks of 65536 values keyed by the high 16 bits, and a chunk's
+ * 8KB of bits is only allocated once a value in it is added. Dense auto-increment ids therefore cost about one bit
+ * each. Adds use compare-and-set and never block readers.
+ */
+public class ConcurrentBitmap {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int WORDS_PER_CHUNK = (1 << CHUNK_BITS) / 64;
+
+    private final AtomicReferenceArray<AtomicLongArray> chunks = new AtomicReferenceArray<>(1 << (31 - CHUNK_BITS));
+    private final AtomicLong cardinality = new AtomicLong();
+
+    /**
+     * @param value a non-negative int.
+     * @return true if the value was not already present.
+     */
+    public boolean add(int value){
+        if (value < 0){
+            throw new IllegalArgumentException("Only non-negative values can be stored: " + value);
+        }
+        AtomicLongArray chunk = chunks.get(value >>> CHUNK_BITS);
+        if (chunk == null){
+            chunks.compareAndSet(value >>> CHUNK_BITS, null, new AtomicLongArray(WORDS_PER_CHUNK));
+            chunk = chunks.get(value >>> CHUNK_BITS);
+        }
+        int word = (value & ((1 << CHUNK_BITS) - 1)) >>> 6;
+        long mask = 1L << value;
+        long current;
+        do {
+            current = chunk.get(word);
+            if ((current & mask) != 0){
+                return false;
+            }
+        } while (!chunk.compareAndSet(word, current, current | mask));
+        cardinality.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return true if the value has been added. Always false for negative values.
+     */
+    public boolean contains(int value){
+        if (value < 0){
+            return false;
+        }
+        AtomicLongArray chunk = chunks.get(value >>> CHUNK_BITS);
+        if (chunk == null){
+            return false;
+        }
+        int word = (value & ((1 << CHUNK_BITS) - 1)) >>> 6;
+        return (chunk.get(word) & (1L << value)) != 0;
+    }
+
+    /**
+     * @return number of values present.
+     */
+    public long getCardinality(){
+        return cardinality.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentBitmap{" +
+                "cardinality=" + getCardinality() +
+                '}';
+    }
+}
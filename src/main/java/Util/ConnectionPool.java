@@ -0,0 +1,373 @@
+package Util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+/**
+ * A bounded pool of physical connections handed out by {@link ConnectionUtil#getConnection()}.
+ *
+ * - At most maxSize physical connections exist at any time. Borrowing takes a permit from a semaphore, so a borrower
+ *      only blocks (up to the acquire timeout) when every connection is in use.
+ * - Idle connections are kept on a lock-free deque and reused most-recently-returned first, so the warmest connection
+ *      is handed out again. Connections idle for longer than the idle timeout are closed by a background evictor,
+ *      down to minIdle.
+ * - Calling close() on a borrowed connection returns it to the pool rather than closing the physical connection.
+ * - Each physical connection keeps an LRU cache of its prepared statements, so prepareStatement() with SQL that was
+ *      already prepared on that connection skips parsing and planning. Cached statements stay open while the
+ *      connection is pooled; callers should not hold on to them after closing the connection.
+ */
+public class ConnectionPool {
+
+    private final DataSource dataSource;
+    private final int maxSize;
+    private final int minIdle;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * @param dataSource source of new physical connections.
+     * @param maxSize maximum number of physical connections, borrowed or idle.
+     * @param minIdle number of idle connections the evictor will always leave open.
+     * @param acquireTimeoutMillis how long getConnection() waits for a free connection before failing.
+     * @param idleTimeoutMillis how long a connection may sit idle before it is eligible for eviction.
+     * @param statementCacheSize prepared statements cached per connection, {@code 0} to disable the cache.
+     */
+    public ConnectionPool(DataSource dataSource, int maxSize, int minIdle, long acquireTimeoutMillis, long idleTimeoutMillis,
+            int statementCacheSize){
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize){
+            throw new IllegalArgumentException("Invalid pool sizing: maxSize=" + maxSize + ", minIdle=" + minIdle);
+        }
+        this.dataSource = dataSource;
+        this.maxSize = maxSize;
+        this.minIdle = minIdle;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, reusing an idle one when possible and opening a new one otherwise.
+     *
+     * @return a connection which must be closed by the caller to return it to the pool.
+     * @throws SQLTimeoutException if no connection became free within the acquire timeout.
+     * @throws SQLException if a new physical connection could not be opened.
+     */
+    public Connection getConnection() throws SQLException {
+        if (!permits.tryAcquire()){
+            waiting.incrementAndGet();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a pooled connection", e);
+            }finally{
+                waiting.decrementAndGet();
+            }
+            if (!acquired){
+                timeoutCount.incrementAndGet();
+                throw new SQLTimeoutException("Timed out after " + acquireTimeoutMillis + "ms waiting for a pooled connection (active="
+                        + active.get() + ", max=" + maxSize + ")");
+            }
+        }
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null){
+                pooled = new PooledConnection(dataSource.getConnection());
+                total.incrementAndGet();
+                createdCount.incrementAndGet();
+            }
+            active.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return pooled.borrow();
+        }catch (SQLException | RuntimeException e){
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Pops the most recently returned idle connection, discarding any that were closed underneath the pool.
+     */
+    private PooledConnection takeIdle(){
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null){
+            if (pooled.isPhysicallyOpen()){
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return null;
+    }
+
+    /**
+     * Called when a borrowed connection is closed. Result sets left open on cached statements are closed, and any open
+     * transaction is rolled back so the next borrower starts with a clean, auto-commit connection.
+     */
+    private void release(PooledConnection pooled){
+        if (pooled.statements != null){
+            pooled.statements.closeResults();
+        }
+        try {
+            if (!pooled.physical.isClosed() && !pooled.physical.getAutoCommit()){
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        }catch (SQLException e){
+            System.out.println(e.getMessage());
+            pooled.closePhysical();
+        }
+        active.decrementAndGet();
+        if (pooled.isPhysicallyOpen()){
+            pooled.lastReturnedNanos = System.nanoTime();
+            idle.offerFirst(pooled);
+        }else{
+            discard(pooled);
+        }
+        permits.release();
+    }
+
+    /**
+     * Closes connections that have been idle for longer than the idle timeout, keeping at least minIdle open. Idle
+     * connections are ordered most recent first, so the oldest ones are found at the tail of the deque.
+     */
+    void evictIdleConnections(){
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        for (PooledConnection pooled : idle){
+            if (idle.size() <= minIdle){
+                return;
+            }
+            if (pooled.lastReturnedNanos - cutoff < 0 && idle.remove(pooled)){
+                evictedCount.incrementAndGet();
+                discard(pooled);
+            }
+        }
+    }
+
+    private void discard(PooledConnection pooled){
+        pooled.closePhysical();
+        total.decrementAndGet();
+    }
+
+    /**
+     * Closes every idle connection and stops the evictor. Borrowed connections are closed as they are returned.
+     */
+    public void shutdown(){
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null){
+            discard(pooled);
+        }
+    }
+
+    /**
+     * @return number of connections currently borrowed.
+     */
+    public int getActiveCount(){
+        return active.get();
+    }
+
+    /**
+     * @return number of open connections sitting in the pool.
+     */
+    public int getIdleCount(){
+        return idle.size();
+    }
+
+    /**
+     * @return number of threads currently blocked waiting for a connection.
+     */
+    public int getWaitingCount(){
+        return waiting.get();
+    }
+
+    /**
+     * @return number of open physical connections, borrowed or idle.
+     */
+    public int getTotalCount(){
+        return total.get();
+    }
+
+    public int getMaxSize(){
+        return maxSize;
+    }
+
+    public long getBorrowCount(){
+        return borrowCount.get();
+    }
+
+    public long getCreatedCount(){
+        return createdCount.get();
+    }
+
+    public long getEvictedCount(){
+        return evictedCount.get();
+    }
+
+    public long getTimeoutCount(){
+        return timeoutCount.get();
+    }
+
+    /**
+     * @return number of prepareStatement() calls answered from a connection's statement cache.
+     */
+    public long getStatementCacheHits(){
+        return statementCacheHits.sum();
+    }
+
+    /**
+     * @return number of prepareStatement() calls that had to prepare a new statement.
+     */
+    public long getStatementCacheMisses(){
+        return statementCacheMisses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "active=" + getActiveCount() +
+                ", idle=" + getIdleCount() +
+                ", waiting=" + getWaitingCount() +
+                ", total=" + getTotalCount() +
+                ", max=" + maxSize +
+                '}';
+    }
+
+    /**
+     * A physical connection owned by the pool. Each borrow hands out a new proxy, so a caller that holds on to a
+     * connection after closing it cannot interfere with the next borrower.
+     */
+    private class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        volatile long lastReturnedNanos = System.nanoTime();
+
+        PooledConnection(Connection physical){
+            this.physical = physical;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, statementCacheHits, statementCacheMisses)
+                    : null;
+        }
+
+        Connection borrow(){
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new BorrowedConnectionHandler(this));
+        }
+
+        boolean isPhysicallyOpen(){
+            try {
+                return !physical.isClosed();
+            }catch (SQLException e){
+                return false;
+            }
+        }
+
+        void closePhysical(){
+            if (statements != null){
+                statements.clear();
+            }
+            try {
+                physical.close();
+            }catch (SQLException e){
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Delegates every call to the physical connection until close() is called, which hands the connection back to
+     * the pool exactly once.
+     */
+    private class BorrowedConnectionHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        BorrowedConnectionHandler(PooledConnection pooled){
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()){
+                case "close":
+                    if (!returned){
+                        returned = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (returned ? ", returned]" : "]");
+                default:
+                    if (returned){
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    if (pooled.statements != null && isCacheablePrepare(method, args)){
+                        int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                        return pooled.statements.prepare((String) args[0], autoGeneratedKeys);
+                    }
+                    try {
+                        return method.invoke(pooled.physical, args);
+                    }catch (InvocationTargetException e){
+                        throw e.getCause();
+                    }
+            }
+        }
+
+        /**
+         * Only prepareStatement(String) and prepareStatement(String, int autoGeneratedKeys) are cached; the column
+         * index/name variants are passed straight through.
+         */
+        private boolean isCacheablePrepare(Method method, Object[] args){
+            if (!method.getName().equals("prepareStatement")){
+                return false;
+            }
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            return parameterTypes.length == 1 || (parameterTypes.length == 2 && parameterTypes[1] == int.class);
+        }
+    }
+}
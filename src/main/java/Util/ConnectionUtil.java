@@ -13,7 +13,8 @@ import org.h2.tools.RunScript;
  * our database. This class utilizes the singleton design pattern. We will be
  * utilizing an in-memory called h2database for the sql demos.
  *
- * DO NOT CHANGE ANYTHING IN THIS CLASS
+ * Connections are borrowed from a bounded {@link ConnectionPool}, and the schema is brought up to date by a
+ * {@link SchemaMigrator} when the class loads.
  */
 public class ConnectionUtil {
 
@@ -32,41 +33,118 @@ public class ConnectionUtil {
 	private static String password = "sa";
 
 	/**
-	 * DataSource for pooling. Pooling enables the creation of multiple connections when connections are closed.
+	 * DataSource used by the pool to open new physical connections.
 	 */
-	private static JdbcDataSource pool = new JdbcDataSource();
+	private static JdbcDataSource dataSource = new JdbcDataSource();
+
+	/**
+	 * Bounded pool of connections. Sizing and timeouts can be overridden with the db.pool.* system properties.
+	 */
+	private static ConnectionPool pool;
+
+	/**
+	 * Applies the versioned scripts under src/main/resources/db/migration.
+	 */
+	private static SchemaMigrator migrator = new SchemaMigrator("db/migration");
 
 	/**
 	 * static initialization block to establish credentials for DataSoure Pool
 	 */
 	static {
-		pool.setURL(url);
-		pool.setUser(username);
-		pool.setPassword(password);
+		dataSource.setURL(url);
+		dataSource.setUser(username);
+		dataSource.setPassword(password);
+		pool = new ConnectionPool(dataSource,
+				Integer.getInteger("db.pool.maxSize", 10),
+				Integer.getInteger("db.pool.minIdle", 2),
+				Long.getLong("db.pool.acquireTimeoutMillis", 5000),
+				Long.getLong("db.pool.idleTimeoutMillis", 600000),
+				Integer.getInteger("db.pool.statementCacheSize", 32));
+		migrate();
 	}
 
 	/**
+	 * Borrows a connection from the pool. The connection must be closed (see {@link #closeConnection(Connection)})
+	 * to return it to the pool.
+	 *
 	 * @return an active connection to the database
+	 * @throws UnavailableException if no connection could be borrowed, e.g. because the pool stayed exhausted for
+	 *             db.pool.acquireTimeoutMillis.
 	 */
 	public static Connection getConnection() {
 		try {
 			return pool.getConnection();
+		} catch (SQLException e) {
+			throw new UnavailableException(e);
+		}
+	}
+
+	/**
+	 * Thrown instead of returning a null connection, which the DAOs would only dereference outside their SQLException
+	 * handling. The controller answers it with 503.
+	 */
+	public static class UnavailableException extends RuntimeException {
+		public UnavailableException(SQLException cause) {
+			super(cause.getMessage(), cause);
+		}
+	}
+
+	/**
+	 * Returns a borrowed connection to the pool. Safe to call with null or an already returned connection.
+	 *
+	 * @param connection a connection obtained from {@link #getConnection()}
+	 */
+	public static void closeConnection(Connection connection) {
+		if (connection == null) {
+			return;
+		}
+		try {
+			connection.close();
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
+	}
+
+	/**
+	 * @return the pool behind {@link #getConnection()}, exposing active/idle/waiting counters.
+	 */
+	public static ConnectionPool getPool() {
+		return pool;
+	}
 
-		return null;
+	/**
+	 * Applies any pending schema migrations to the database, keeping its existing data.
+	 *
+	 * @throws IllegalStateException if a migration fails, so the application does not start on a partially migrated
+	 *             schema.
+	 */
+	public static void migrate() {
+		Connection connection = getConnection();
+		try {
+			migrator.migrate(connection);
+		} catch (SQLException e) {
+			throw new IllegalStateException("Schema migration failed", e);
+		} finally {
+			closeConnection(connection);
+		}
 	}
 
 	/**
 	 * For the purpose of testing, we will need to drop and recreate our database
 	 * tables to keep it consistent across all tests. The method will read the sql
-	 * file in resources. This will be performed before every test.
+	 * file in resources, then re-applies the migrations on top of it. This will be
+	 * performed before every test.
 	 */
 	public static void resetTestDatabase() {
 		try {
 			FileReader sqlReader = new FileReader("src/main/resources/SocialMedia.sql");
-			RunScript.execute(getConnection(), sqlReader);
+			Connection connection = getConnection();
+			try {
+				RunScript.execute(connection, sqlReader);
+			} finally {
+				closeConnection(connection);
+			}
+			migrate();
 		} catch (SQLException | FileNotFoundException e) {
 			e.printStackTrace();
 		}
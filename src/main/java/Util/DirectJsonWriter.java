@@ -0,0 +1,232 @@
+package Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+
+import Model.Account;
+import Model.Message;
+
+/**
+ * Hand-written JSON serializers for Message and Account, the only shapes the hot read endpoints return. Fields are
+ * written in the same order and with the same escaping rules as Jackson's bean serializer, but without reflection or
+ * intermediate Strings: numbers are formatted and strings UTF-8 encoded and escaped straight into a byte buffer, which
+ * is flushed to the output stream whenever it fills up.
+ *
+ * Each thread reuses one 8KB buffer, so writing a response allocates nothing per field. The buffer is per platform
+ * thread; on virtual threads, which are not pooled, each request would get a fresh one.
+ */
+public final class DirectJsonWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * Longest encoding of one char: a six-character unicode escape.
+     */
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+    private static final ThreadLocal<DirectJsonWriter> LOCAL = ThreadLocal.withInitial(DirectJsonWriter::new);
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private OutputStream out;
+
+    private DirectJsonWriter(){
+    }
+
+    /**
+     * Writes one message as a JSON object.
+     */
+    public static void writeMessage(Message message, OutputStream out) throws IOException {
+        DirectJsonWriter writer = LOCAL.get().start(out);
+        writer.message(message);
+        writer.flush();
+    }
+
+    /**
+     * Writes the messages as a JSON array, in iteration order.
+     */
+    public static void writeMessages(Collection<Message> messages, OutputStream out) throws IOException {
+        DirectJsonWriter writer = LOCAL.get().start(out);
+        writer.raw('[');
+        boolean first = true;
+        for (Message message : messages){
+            if (!first){
+                writer.raw(',');
+            }
+            first = false;
+            writer.message(message);
+        }
+        writer.raw(']');
+        writer.flush();
+    }
+
+    /**
+     * Writes one account as a JSON object.
+     */
+    public static void writeAccount(Account account, OutputStream out) throws IOException {
+        DirectJsonWriter writer = LOCAL.get().start(out);
+        writer.ascii("{\"account_id\":");
+        writer.number(account.getAccount_id());
+        writer.ascii(",\"username\":");
+        writer.string(account.getUsername());
+        writer.ascii(",\"password\":");
+        writer.string(account.getPassword());
+        writer.raw('}');
+        writer.flush();
+    }
+
+    /**
+     * @return the JSON of one message as a new byte array, sized exactly.
+     */
+    public static byte[] toBytes(Message message){
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        try {
+            writeMessage(message, out);
+        } catch (IOException e) {
+            //a ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private DirectJsonWriter start(OutputStream out){
+        this.out = out;
+        this.position = 0;
+        return this;
+    }
+
+    private void message(Message message) throws IOException {
+        ascii("{\"message_id\":");
+        number(message.getMessage_id());
+        ascii(",\"posted_by\":");
+        number(message.getPosted_by());
+        ascii(",\"message_text\":");
+        string(message.getMessage_text());
+        ascii(",\"time_posted_epoch\":");
+        number(message.getTime_posted_epoch());
+        raw('}');
+    }
+
+    private void raw(char c) throws IOException {
+        if (position == buffer.length){
+            drain();
+        }
+        buffer[position++] = (byte) c;
+    }
+
+    /**
+     * Copies a constant that is known to be ASCII and to need no escaping.
+     */
+    private void ascii(String s) throws IOException {
+        if (position + s.length() > buffer.length){
+            drain();
+        }
+        for (int i = 0; i < s.length(); i++){
+            buffer[position++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void number(long value) throws IOException {
+        if (position + 20 > buffer.length){
+            drain();
+        }
+        if (value == Long.MIN_VALUE){
+            ascii(Long.toString(value));
+            return;
+        }
+        if (value < 0){
+            buffer[position++] = '-';
+            value = -value;
+        }
+        //digits are produced backwards, so count them first and fill from the end
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10){
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--){
+            buffer[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        position = end;
+    }
+
+    /**
+     * Writes a quoted string, UTF-8 encoding and escaping in place. Like Jackson, only quotes, backslashes, control
+     * characters and surrogates, paired or not, are escaped.
+     */
+    private void string(String s) throws IOException {
+        if (s == null){
+            ascii("null");
+            return;
+        }
+        raw('"');
+        int length = s.length();
+        //check for room once per string when it surely fits, instead of once per char
+        boolean fits = position + (long) length * MAX_CHAR_BYTES <= buffer.length;
+        for (int i = 0; i < length; i++){
+            if (!fits && position + MAX_CHAR_BYTES > buffer.length){
+                drain();
+            }
+            char c = s.charAt(i);
+            if (c < 0x80){
+                if (c == '"' || c == '\\'){
+                    buffer[position++] = '\\';
+                    buffer[position++] = (byte) c;
+                }else if (c < 0x20){
+                    escapeControl(c);
+                }else{
+                    buffer[position++] = (byte) c;
+                }
+            }else if (c < 0x800){
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }else if (Character.isSurrogate(c)){
+                //Jackson escapes every surrogate on its own: a pair becomes two escapes and an unpaired one survives
+                escapeUnicode(c);
+            }else{
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        raw('"');
+    }
+
+    private void escapeControl(char c){
+        char escape;
+        switch (c){
+            case '\n': escape = 'n'; break;
+            case '\r': escape = 'r'; break;
+            case '\t': escape = 't'; break;
+            case '\b': escape = 'b'; break;
+            case '\f': escape = 'f'; break;
+            default:
+                escapeUnicode(c);
+                return;
+        }
+        buffer[position++] = '\\';
+        buffer[position++] = (byte) escape;
+    }
+
+    private void escapeUnicode(char c){
+        buffer[position++] = '\\';
+        buffer[position++] = 'u';
+        buffer[position++] = HEX[c >> 12];
+        buffer[position++] = HEX[(c >> 8) & 0xF];
+        buffer[position++] = HEX[(c >> 4) & 0xF];
+        buffer[position++] = HEX[c & 0xF];
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private void flush() throws IOException {
+        drain();
+        //do not keep a reference to the caller's stream in the thread-local
+        out = null;
+    }
+}
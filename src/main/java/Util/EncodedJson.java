@@ -0,0 +1,43 @@
+package Util;
+
+/**
+ * An already serialized JSON response body: its UTF-8 bytes and the strong ETag of the version they were encoded from.
+ * Instances are immutable; the byte array must not be modified after construction.
+ */
+public class EncodedJson {
+
+    private final byte[] bytes;
+    private final String etag;
+
+    /**
+     * @param bytes the UTF-8 encoded JSON.
+     * @param etag the quoted entity tag to send with it.
+     */
+    public EncodedJson(byte[] bytes, String etag){
+        this.bytes = bytes;
+        this.etag = etag;
+    }
+
+    public byte[] getBytes(){
+        return bytes;
+    }
+
+    public String getEtag(){
+        return etag;
+    }
+
+    /**
+     * @return the number of bytes this entry holds on the heap, roughly: the body plus the array, tag and object headers.
+     */
+    public int getWeight(){
+        return bytes.length + 2 * etag.length() + 96;
+    }
+
+    @Override
+    public String toString() {
+        return "EncodedJson{" +
+                "bytes=" + bytes.length +
+                ", etag=" + etag +
+                '}';
+    }
+}
@@ -0,0 +1,149 @@
+package Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import Model.Account;
+import Model.Message;
+import io.javalin.json.JsonMapper;
+
+/**
+ * The application's one JSON codec. Building an ObjectMapper and its serializer and deserializer caches is expensive,
+ * so a single mapper is shared, with ObjectReader/ObjectWriter instances resolved once per type and reused. Readers and
+ * writers are immutable and safe to share between threads.
+ *
+ * The codec is also registered as Javalin's JsonMapper, so ctx.json uses the same cached writers. The Account and
+ * Message readers and writers are exercised once when the class loads, so the first request does not pay for building
+ * them.
+ */
+public class JsonCodec implements JsonMapper {
+
+    private static final JsonCodec INSTANCE = new JsonCodec();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectReader accountReader = mapper.readerFor(Account.class);
+    private final ObjectReader messageReader = mapper.readerFor(Message.class);
+    private final ObjectReader messageListReader = mapper.readerFor(new TypeReference<List<Message>>(){});
+    private final ConcurrentHashMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Type, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private JsonCodec(){
+        warm();
+    }
+
+    /**
+     * @return the shared codec.
+     */
+    public static JsonCodec getInstance(){
+        return INSTANCE;
+    }
+
+    public Account readAccount(String json) throws JsonProcessingException {
+        return accountReader.readValue(json);
+    }
+
+    public Message readMessage(String json) throws JsonProcessingException {
+        return messageReader.readValue(json);
+    }
+
+    /**
+     * Parses an Account straight from a stream, e.g. a request body, without first copying it into a String.
+     */
+    public Account readAccount(InputStream json) throws IOException {
+        return accountReader.readValue(json);
+    }
+
+    /**
+     * Parses a Message straight from a stream, e.g. a request body, without first copying it into a String.
+     */
+    public Message readMessage(InputStream json) throws IOException {
+        return messageReader.readValue(json);
+    }
+
+    public List<Message> readMessages(String json) throws JsonProcessingException {
+        return messageListReader.readValue(json);
+    }
+
+    /**
+     * @return the factory behind the shared mapper, for code that writes JSON token by token.
+     */
+    public JsonFactory getFactory(){
+        return mapper.getFactory();
+    }
+
+    @Override
+    public String toJsonString(Object obj, Type type) {
+        try {
+            return writerFor(type).writeValueAsString(obj);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public InputStream toJsonStream(Object obj, Type type) {
+        try {
+            return new ByteArrayInputStream(writerFor(type).writeValueAsBytes(obj));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <T> T fromJsonString(String json, Type type) {
+        try {
+            return readerFor(type).readValue(json);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <T> T fromJsonStream(InputStream json, Type type) {
+        try {
+            return readerFor(type).readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ObjectReader readerFor(Type type){
+        return readers.computeIfAbsent(type, t -> mapper.readerFor(javaType(t)));
+    }
+
+    private ObjectWriter writerFor(Type type){
+        return writers.computeIfAbsent(type, t -> mapper.writerFor(javaType(t)));
+    }
+
+    private JavaType javaType(Type type){
+        return mapper.getTypeFactory().constructType(type);
+    }
+
+    /**
+     * Round-trips a sample Account, Message and list of Messages, which builds and caches their serializers and
+     * deserializers.
+     */
+    private void warm(){
+        try {
+            Message message = new Message(1, 1, "warm up", 0);
+            readAccount(toJsonString(new Account(1, "warm up", "warm up"), Account.class));
+            readMessage(toJsonString(message, Message.class));
+            readMessages(toJsonString(List.of(message), List.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("JSON codec failed to warm up", e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package Util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.h2.tools.RunScript;
+
+/**
+ * Brings an existing database up to date by applying versioned SQL scripts in order, without touching its data.
+ *
+ * Scripts live on the classpath under a location such as {@code db/migration}, listed one per line in that location's
+ * {@code migrations.txt}. Each script is named {@code V<version>__<description>.sql}. Every applied script is recorded in
+ * the schema_version table with a CRC32 checksum of its contents; later runs skip applied versions and refuse to start
+ * if an applied script has since been edited.
+ */
+public class SchemaMigrator {
+
+    private static final String CREATE_HISTORY = "create table if not exists schema_version (" +
+            "version int primary key, " +
+            "description varchar(255), " +
+            "checksum bigint, " +
+            "installed_on timestamp default current_timestamp)";
+
+    private final String location;
+
+    /**
+     * @param location classpath directory holding migrations.txt and the scripts it lists, e.g. {@code db/migration}.
+     */
+    public SchemaMigrator(String location){
+        this.location = location;
+    }
+
+    /**
+     * Applies every listed script that has not been applied yet, each followed by its schema_version row.
+     *
+     * @param connection an open connection to the database to migrate.
+     * @return number of scripts applied by this call.
+     * @throws IllegalStateException if an applied script's checksum no longer matches, a script is missing, or a script
+     *      fails. H2 commits DDL as it runs, so a failed script may be partially applied and needs fixing by hand.
+     */
+    public int migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()){
+            statement.execute(CREATE_HISTORY);
+        }
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select version, checksum from schema_version")){
+            while (rs.next()){
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        int count = 0;
+        int previous = 0;
+        for (String script : listScripts()){
+            int version = version(script);
+            if (version <= previous){
+                throw new IllegalStateException("Migrations must be listed in increasing version order: " + script);
+            }
+            previous = version;
+            String sql = read(script);
+            long checksum = checksum(sql);
+            Long applied_checksum = applied.get(version);
+            if (applied_checksum != null){
+                if (applied_checksum != checksum){
+                    throw new IllegalStateException("Migration " + script + " was changed after it was applied");
+                }
+                continue;
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                RunScript.execute(connection, new StringReader(sql));
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "insert into schema_version (version, description, checksum) values (?, ?, ?)")){
+                    ps.setInt(1, version);
+                    ps.setString(2, description(script));
+                    ps.setLong(3, checksum);
+                    ps.executeUpdate();
+                }
+                connection.commit();
+            }catch (SQLException e){
+                connection.rollback();
+                throw new IllegalStateException("Migration " + script + " failed", e);
+            }finally{
+                connection.setAutoCommit(autoCommit);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the script names listed in migrations.txt, skipping blank lines and # comments.
+     */
+    List<String> listScripts(){
+        List<String> scripts = new ArrayList<>();
+        for (String line : read("migrations.txt").split("\n")){
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")){
+                scripts.add(line);
+            }
+        }
+        return scripts;
+    }
+
+    private String read(String name){
+        InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(location + "/" + name);
+        if (in == null){
+            throw new IllegalStateException("Missing migration resource " + location + "/" + name);
+        }
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))){
+            String line;
+            while ((line = reader.readLine()) != null){
+                sb.append(line).append('\n');
+            }
+        }catch (IOException e){
+            throw new IllegalStateException("Could not read migration resource " + location + "/" + name, e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Line endings are normalized by {@link #read(String)}, so a checkout with CRLF endings does not change the checksum.
+     */
+    static long checksum(String sql){
+        CRC32 crc = new CRC32();
+        crc.update(sql.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    static int version(String script){
+        int separator = script.indexOf("__");
+        if (!script.startsWith("V") || separator < 2 || !script.endsWith(".sql")){
+            throw new IllegalStateException("Migration names must look like V<version>__<description>.sql: " + script);
+        }
+        return Integer.parseInt(script.substring(1, separator));
+    }
+
+    private static String description(String script){
+        return script.substring(script.indexOf("__") + 2, script.length() - ".sql".length()).replace('_', ' ');
+    }
+}
@@ -0,0 +1,89 @@
+package Util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: while a load for a key is in flight, other callers asking for that key
+ * wait for it and share its result instead of running the same query again.
+ *
+ * Nothing is cached once the load finishes; the next call after that starts a new load. Writers should call
+ * {@link #forget(Object)} after changing the underlying data, so callers arriving after the write do not join a load
+ * that may have read the old data.
+ *
+ * @param <K> key type.
+ * @param <V> result type.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Runs the loader for this key, or waits for the load already in flight for it.
+     *
+     * @param key identifies the load.
+     * @param loader runs on the calling thread if no load for the key is in flight.
+     * @return the loader's result, shared by every caller that joined the same load.
+     */
+    public V execute(K key, Supplier<V> loader){
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null){
+            coalesced.increment();
+            try {
+                return existing.join();
+            }catch (CompletionException e){
+                if (e.getCause() instanceof RuntimeException){
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        executed.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        }catch (RuntimeException | Error e){
+            flight.completeExceptionally(e);
+            throw e;
+        }finally{
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Detaches the load in flight for this key, if any. Callers already waiting on it still get its result, but later
+     * callers start a new load.
+     */
+    public void forget(K key){
+        inFlight.remove(key);
+    }
+
+    /**
+     * @return number of loads actually run.
+     */
+    public long getExecutedCount(){
+        return executed.sum();
+    }
+
+    /**
+     * @return number of calls that shared a load run by another caller.
+     */
+    public long getCoalescedCount(){
+        return coalesced.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlight{" +
+                "executed=" + getExecutedCount() +
+                ", coalesced=" + getCoalescedCount() +
+                '}';
+    }
+}
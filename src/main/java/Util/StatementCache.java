@@ -0,0 +1,133 @@
+package Util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An LRU cache of prepared statements for a single physical connection, keyed by SQL text and the generated-keys flag.
+ *
+ * A connection is only ever used by one borrower at a time, so the cache itself is not synchronized. The hit/miss
+ * counters are shared by every connection in the pool.
+ */
+class StatementCache {
+
+    private final Connection physical;
+    private final Map<Key, PreparedStatement> statements;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * @param physical the connection the statements are prepared on.
+     * @param maxSize number of statements to keep; the least recently used statement is closed beyond that.
+     * @param hits shared hit counter.
+     * @param misses shared miss counter.
+     */
+    StatementCache(Connection physical, int maxSize, LongAdder hits, LongAdder misses){
+        this.physical = physical;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > maxSize){
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached statement for this SQL, or prepares and caches a new one. A cached statement that was closed
+     * by its caller is prepared again.
+     *
+     * @param sql the statement text.
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or {@link Statement#NO_GENERATED_KEYS}.
+     * @return a statement with its parameters cleared.
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        PreparedStatement statement = statements.get(key);
+        if (statement != null && !statement.isClosed()){
+            hits.increment();
+            statement.clearParameters();
+            return statement;
+        }
+        misses.increment();
+        statement = physical.prepareStatement(sql, autoGeneratedKeys);
+        statements.put(key, statement);
+        return statement;
+    }
+
+    /**
+     * Closes the result sets the last borrower left open on the cached statements, including generated keys. Called
+     * when the connection goes back to the pool, so an idle connection does not pin the rows of its last query.
+     */
+    void closeResults(){
+        for (Map.Entry<Key, PreparedStatement> entry : statements.entrySet()){
+            PreparedStatement statement = entry.getValue();
+            try {
+                if (statement.isClosed()){
+                    continue;
+                }
+                ResultSet results = statement.getResultSet();
+                if (results != null){
+                    results.close();
+                }
+                if (entry.getKey().autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS){
+                    statement.getGeneratedKeys().close();
+                }
+            }catch (SQLException e){
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Closes every cached statement.
+     */
+    void clear(){
+        for (PreparedStatement statement : statements.values()){
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement){
+        try {
+            statement.close();
+        }catch (SQLException e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private static final class Key {
+        private final String sql;
+        private final int autoGeneratedKeys;
+
+        Key(String sql, int autoGeneratedKeys){
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return autoGeneratedKeys == key.autoGeneratedKeys && sql.equals(key.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sql.hashCode() + autoGeneratedKeys;
+        }
+    }
+}
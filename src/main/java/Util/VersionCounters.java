@@ -0,0 +1,50 @@
+package Util;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version numbers for int keys, bumped whenever the data behind a key changes, from which strong ETags are built.
+ *
+ * Counters are striped: keys share one of a fixed number of slots, so memory stays constant however many keys there
+ * are. Two keys in the same slot bump each other's version, which only costs an unnecessary full response, never a
+ * wrong 304. Versions live in memory, so every instance gets a random nonce that is part of its tags; tags handed out
+ * before a restart therefore never match afterwards.
+ */
+public class VersionCounters {
+
+    private final AtomicLongArray versions;
+    private final int mask;
+    private final String nonce;
+
+    /**
+     * @param stripes number of counter slots, rounded up to a power of two.
+     */
+    public VersionCounters(int stripes){
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.versions = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.nonce = Long.toHexString(new SecureRandom().nextLong());
+    }
+
+    /**
+     * @return the current version of the key.
+     */
+    public long get(int key){
+        return versions.get(key & mask);
+    }
+
+    /**
+     * Records a change to the data behind the key. Call it after the change is visible to readers.
+     */
+    public void bump(int key){
+        versions.incrementAndGet(key & mask);
+    }
+
+    /**
+     * @return a quoted strong ETag for the key at its current version.
+     */
+    public String etag(int key){
+        return "\"" + nonce + "-" + key + "-" + get(key) + "\"";
+    }
+}
@@ -0,0 +1,2 @@
+-- Serves a user's timeline (where posted_by = ? order by message_id) without a scan or a sort.
+create index if not exists message_posted_by_idx on message (posted_by, message_id);
@@ -0,0 +1,2 @@
+-- Serves time-ordered and time-range reads over all messages.
+create index if not exists message_time_posted_idx on message (time_posted_epoch, message_id);
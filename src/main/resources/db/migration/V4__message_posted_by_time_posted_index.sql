@@ -0,0 +1,2 @@
+-- Serves time-range reads of one user's messages (where posted_by = ? and time_posted_epoch >= ?).
+create index if not exists message_posted_by_time_idx on message (posted_by, time_posted_epoch, message_id);
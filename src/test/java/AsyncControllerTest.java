@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.AsyncSocialMediaController;
+import Model.Message;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+import io.javalin.http.Handler;
+
+public class AsyncControllerTest {
+    AsyncSocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database and start the async controller with one handler thread and room for one
+     * queued request.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new AsyncSocialMediaController(1, 1);
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages, then GET localhost:8080/messages/2, through the executor
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the created message both times
+     */
+    @Test
+    public void createThenGetMessage() throws IOException, InterruptedException {
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{"+
+                        "\"posted_by\":1, " +
+                        "\"message_text\": \"hello message\", " +
+                        "\"time_posted_epoch\": 1669947792}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+        Message expectedResult = new Message(2, 1, "hello message", 1669947792);
+        Assert.assertEquals(expectedResult, objectMapper.readValue(response.body(), Message.class));
+
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/2"))
+                .build();
+        response = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertEquals(expectedResult, objectMapper.readValue(response.body(), Message.class));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages while the only handler thread is busy and the queue is full
+     *
+     * Expected Response:
+     *  Status Code: 503
+     */
+    @Test
+    public void getMessagesWhenOverloaded() throws IOException, InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocker = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        socialMediaController.getExecutor().execute(blocker);
+        socialMediaController.getExecutor().execute(blocker);
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages"))
+                    .build();
+            HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+            Assert.assertEquals(503, response.statusCode());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Sending an http request to a route whose handler throws an Error on the executor
+     *
+     * Expected Response:
+     *  Status Code: 500, promptly, instead of the request hanging until the async timeout
+     */
+    @Test
+    public void handlerErrorFailsRequest() throws IOException, InterruptedException {
+        app.get("/error", new ErrorController().failingRoute());
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/error"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(500, response.statusCode());
+    }
+
+    /**
+     * Exposes the async routing for a handler that throws an Error.
+     */
+    static class ErrorController extends AsyncSocialMediaController {
+        ErrorController(){
+            super(1, 1);
+        }
+
+        Handler failingRoute(){
+            return route(ctx -> {
+                throw new AssertionError("simulated failure");
+            });
+        }
+    }
+}
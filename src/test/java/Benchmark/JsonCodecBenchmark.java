@@ -0,0 +1,57 @@
+package Benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Model.Message;
+import Util.JsonCodec;
+
+/**
+ * Compares what a POST localhost:8080/messages request spends on JSON: reading the body into a Message and writing
+ * the created Message back. "perRequestMapper" is the old handler code, which built a new ObjectMapper per request;
+ * "sharedCodec" goes through the cached readers and writers of {@link JsonCodec}. Not a unit test; run it by hand, e.g.
+ *
+ *     mvn test-compile exec:java -Dexec.mainClass=Benchmark.JsonCodecBenchmark -Dexec.classpathScope=test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    private final String body = "{\"posted_by\":1, \"message_text\": \"hello message\", \"time_posted_epoch\": 1669947792}";
+
+    @Benchmark
+    public String perRequestMapper() throws JsonProcessingException {
+        ObjectMapper om = new ObjectMapper();
+        Message message = om.readValue(body, Message.class);
+        return om.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public String sharedCodec() throws JsonProcessingException {
+        Message message = JsonCodec.getInstance().readMessage(body);
+        return JsonCodec.getInstance().toJsonString(message, Message.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
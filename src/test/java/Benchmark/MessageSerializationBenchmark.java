@@ -0,0 +1,89 @@
+package Benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import Model.Message;
+import Util.DirectJsonWriter;
+import Util.JsonCodec;
+
+/**
+ * Compares writing response bodies with Jackson's bean serializer (through the shared {@link JsonCodec}, as ctx.json
+ * does) against {@link DirectJsonWriter}, for one message and for a 50 message listing. Runs with JMH's GC profiler, whose
+ * gc.alloc.rate.norm column is the bytes allocated per response. Not a unit test; run it by hand, e.g.
+ *
+ *     mvn test-compile exec:java -Dexec.mainClass=Benchmark.MessageSerializationBenchmark -Dexec.classpathScope=test
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageSerializationBenchmark {
+
+    private final Message message = new Message(1, 1, "test message 1", 1669947792);
+    private final List<Message> messages = new ArrayList<>();
+    /**
+     * Stands in for the response stream; discards what it is given so only serialization is measured.
+     */
+    private final OutputStream out = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    public MessageSerializationBenchmark(){
+        for (int i = 1; i <= 50; i++){
+            messages.add(new Message(i, 1, "test message " + i, 1669947792L + i));
+        }
+    }
+
+    @Benchmark
+    public void jacksonMessage() throws IOException {
+        JsonCodec.getInstance().toJsonStream(message, Message.class).transferTo(out);
+    }
+
+    @Benchmark
+    public void directMessage() throws IOException {
+        DirectJsonWriter.writeMessage(message, out);
+    }
+
+    @Benchmark
+    public void jacksonMessages() throws IOException {
+        JsonCodec.getInstance().toJsonStream(messages, messages.getClass()).transferTo(out);
+    }
+
+    @Benchmark
+    public void directMessages() throws IOException {
+        DirectJsonWriter.writeMessages(messages, out);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MessageSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,137 @@
+package Benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import Controller.SocialMediaController;
+import DAO.MessageDAO;
+import Model.Message;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+/**
+ * Compares throughput and latency of the "platform" and "virtual" server.threadMode settings under high concurrency.
+ * Not a unit test; run it by hand, e.g.
+ *
+ *     mvn test-compile exec:java -Dexec.mainClass=Benchmark.ServerThreadModeBenchmark -Dexec.classpathScope=test
+ *
+ * Each mode serves a mix of cheap requests (GET /messages/{message_id}) and slow ones (GET /messages, the full list of
+ * the seeded messages) from many client threads at once. Latency is reported separately for the cheap requests, since
+ * the point of the virtual mode is that they no longer queue behind the slow ones. On a runtime without virtual threads
+ * the virtual run falls back to platform threads and the two results should match.
+ *
+ * Arguments, all optional: client threads (default 500), seconds per mode (default 20), seeded messages (default 5000),
+ * and the platform pool's server.maxThreads (default 50, small enough for the slow requests to exhaust it).
+ */
+public class ServerThreadModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int messages = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        System.setProperty("server.maxThreads", args.length > 3 ? args[3] : "50");
+
+        seed(messages);
+        for (String mode : new String[]{"platform", "virtual"}){
+            System.setProperty("server.threadMode", mode);
+            run(mode, clients, seconds, messages);
+        }
+        System.exit(0);
+    }
+
+    private static void seed(int count){
+        ConnectionUtil.resetTestDatabase();
+        MessageDAO messageDAO = new MessageDAO();
+        List<Message> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++){
+            batch.add(new Message(1, "benchmark message " + i, 1669947792L + i));
+            if (batch.size() == 500){
+                messageDAO.insertMessages(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()){
+            messageDAO.insertMessages(batch);
+        }
+    }
+
+    private static void run(String mode, int clients, int seconds, int messages) throws InterruptedException {
+        Javalin app = new SocialMediaController().startAPI();
+        app.start(8080);
+        HttpClient webClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++){
+            int client = c;
+            threads[c] = new Thread(() -> {
+                long[] samples = new long[1024];
+                int n = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline){
+                    //one request in twenty is the slow full listing
+                    boolean slow = random.nextInt(20) == 0;
+                    String path = slow ? "/messages" : "/messages/" + (1 + random.nextInt(messages));
+                    HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080" + path)).build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = webClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200){
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                    } catch (IOException | InterruptedException e) {
+                        errors.incrementAndGet();
+                        continue;
+                    }
+                    if (!slow){
+                        if (n == samples.length){
+                            samples = Arrays.copyOf(samples, n * 2);
+                        }
+                        samples[n++] = System.nanoTime() - start;
+                    }
+                }
+                latencies[client] = samples;
+                counts[client] = n;
+            });
+            threads[c].start();
+        }
+        for (Thread thread : threads){
+            thread.join();
+        }
+        app.stop();
+
+        int total = 0;
+        for (int count : counts){
+            total += count;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (int c = 0; c < clients; c++){
+            System.arraycopy(latencies[c], 0, all, offset, counts[c]);
+            offset += counts[c];
+        }
+        Arrays.sort(all);
+        System.out.printf("%-8s clients=%d  cheap requests/s=%.0f  p50=%.1fms  p99=%.1fms  max=%.1fms  errors=%d%n",
+                mode, clients, (double) total / seconds,
+                percentile(all, 0.50), percentile(all, 0.99), total == 0 ? 0 : all[total - 1] / 1e6, errors.get());
+    }
+
+    private static double percentile(long[] sorted, double p){
+        if (sorted.length == 0){
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
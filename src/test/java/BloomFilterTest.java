@@ -0,0 +1,50 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import Util.BloomFilter;
+
+public class BloomFilterTest {
+
+    /**
+     * Every added string must be reported as possibly present.
+     */
+    @Test
+    public void addedValuesAreNeverMissed() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("user" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(filter.mightContain("user" + i));
+        }
+    }
+
+    /**
+     * Filled to its expected size, the filter should stay close to the false-positive rate it was sized for.
+     */
+    @Test
+    public void falsePositiveRateIsNearTarget() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("user" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue("false positives: " + falsePositives, falsePositives < 300);
+        Assert.assertTrue(filter.getFillRatio() > 0.3 && filter.getFillRatio() < 0.7);
+    }
+
+    /**
+     * An empty filter has nothing set and reports every string as absent.
+     */
+    @Test
+    public void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        Assert.assertFalse(filter.mightContain("testuser1"));
+        Assert.assertEquals(0.0, filter.getFillRatio(), 0.0);
+    }
+}
@@ -0,0 +1,113 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import Util.BoundedCache;
+
+public class BoundedCacheTest {
+
+    /**
+     * Once the cache is full, the least recently used entry should be evicted first.
+     */
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(2, 0);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.get(1);
+        cache.put(3, "three");
+
+        Assert.assertEquals("one", cache.get(1));
+        Assert.assertNull(cache.get(2));
+        Assert.assertEquals("three", cache.get(3));
+        Assert.assertEquals(1, cache.getEvictionCount());
+    }
+
+    /**
+     * Entries older than the time-to-live should read as misses.
+     */
+    @Test
+    public void expiredEntryIsAMiss() throws InterruptedException {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, 20);
+        cache.put(1, "one");
+        Thread.sleep(50);
+
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * A value loaded before an invalidation must not be cached afterwards, or the cache would serve stale data.
+     */
+    @Test
+    public void loadRacingAnInvalidationIsNotCached() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, 0);
+        long stamp = cache.stamp();
+        cache.invalidate(1);
+
+        Assert.assertFalse(cache.putIfUnchanged(1, "stale", stamp));
+        Assert.assertNull(cache.get(1));
+
+        stamp = cache.stamp();
+        Assert.assertTrue(cache.putIfUnchanged(1, "fresh", stamp));
+        Assert.assertEquals("fresh", cache.get(1));
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * Writes to other keys should not stop a load from being cached, but a write to the same key should.
+     */
+    @Test
+    public void loadIsOnlyRefusedByWritesToItsKey() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, 0);
+        long stamp = cache.stamp();
+        cache.update(2, value -> value + " updated");
+        cache.invalidate(3);
+        cache.put(4, "four");
+        Assert.assertTrue(cache.putIfUnchanged(1, "one", stamp));
+
+        stamp = cache.stamp();
+        cache.update(1, value -> value + " updated");
+        Assert.assertFalse(cache.putIfUnchanged(1, "stale", stamp));
+        Assert.assertEquals("one updated", cache.get(1));
+
+        stamp = cache.stamp();
+        cache.invalidateAll();
+        Assert.assertFalse(cache.putIfUnchanged(5, "stale", stamp));
+    }
+
+    /**
+     * An entry that has been read repeatedly should survive a burst of entries that are only written once.
+     */
+    @Test
+    public void frequentlyReadEntrySurvivesScan() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(5, 0);
+        cache.put(0, "hot");
+        cache.get(0);
+        for (int i = 1; i <= 20; i++) {
+            cache.put(i, "cold " + i);
+        }
+
+        Assert.assertEquals("hot", cache.get(0));
+        Assert.assertEquals(5, cache.size());
+    }
+
+    /**
+     * The bound applies to the total weight, and updating an entry in place should re-weigh it.
+     */
+    @Test
+    public void weightBoundAppliesAcrossEntries() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, 0, (key, value) -> value.length());
+        cache.put(1, "aaaa");
+        cache.put(2, "bbbb");
+        Assert.assertEquals(8, cache.weight());
+
+        cache.update(1, value -> value + "aa");
+        Assert.assertEquals(10, cache.weight());
+        Assert.assertEquals("aaaaaa", cache.get(1));
+
+        cache.put(3, "c");
+        Assert.assertTrue(cache.weight() <= 10);
+        Assert.assertNull(cache.get(2));
+    }
+}
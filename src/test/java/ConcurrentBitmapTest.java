@@ -0,0 +1,53 @@
+import org.junit.Assert;
+import org.junit.Test;
+
+import Util.ConcurrentBitmap;
+
+public class ConcurrentBitmapTest {
+
+    /**
+     * Added values, including ones in different chunks, should be present and nothing else should be.
+     */
+    @Test
+    public void containsOnlyAddedValues() {
+        ConcurrentBitmap bitmap = new ConcurrentBitmap();
+        Assert.assertTrue(bitmap.add(1));
+        Assert.assertTrue(bitmap.add(63));
+        Assert.assertTrue(bitmap.add(64));
+        Assert.assertTrue(bitmap.add(70000));
+        Assert.assertTrue(bitmap.add(Integer.MAX_VALUE));
+        Assert.assertFalse(bitmap.add(64));
+
+        Assert.assertTrue(bitmap.contains(1));
+        Assert.assertTrue(bitmap.contains(63));
+        Assert.assertTrue(bitmap.contains(64));
+        Assert.assertTrue(bitmap.contains(70000));
+        Assert.assertTrue(bitmap.contains(Integer.MAX_VALUE));
+        Assert.assertFalse(bitmap.contains(2));
+        Assert.assertFalse(bitmap.contains(65536 + 1));
+        Assert.assertFalse(bitmap.contains(-1));
+        Assert.assertEquals(5, bitmap.getCardinality());
+    }
+
+    /**
+     * Concurrent adds of overlapping ranges should neither lose values nor count them twice.
+     */
+    @Test
+    public void concurrentAddsAreNotLost() throws InterruptedException {
+        ConcurrentBitmap bitmap = new ConcurrentBitmap();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 200000; i++) {
+                    bitmap.add(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(200000, bitmap.getCardinality());
+        Assert.assertTrue(bitmap.contains(199999));
+    }
+}
@@ -0,0 +1,138 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Util.ConnectionPool;
+
+public class ConnectionPoolTest {
+    ConnectionPool pool;
+
+    /**
+     * Before every test, create a small pool over a private in-memory database.
+     */
+    @Before
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("sa");
+        pool = new ConnectionPool(dataSource, 2, 0, 200, 60000, 4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Closing a borrowed connection should return it to the pool, and the next borrow should reuse it.
+     */
+    @Test
+    public void closedConnectionIsReused() throws SQLException {
+        Connection first = pool.getConnection();
+        Assert.assertEquals(1, pool.getActiveCount());
+        first.close();
+        Assert.assertEquals(0, pool.getActiveCount());
+        Assert.assertEquals(1, pool.getIdleCount());
+
+        Connection second = pool.getConnection();
+        second.close();
+        Assert.assertEquals(1, pool.getCreatedCount());
+        Assert.assertEquals(2, pool.getBorrowCount());
+        Assert.assertEquals(1, pool.getTotalCount());
+    }
+
+    /**
+     * Once every connection is borrowed, getConnection should fail after the acquire timeout instead of opening more.
+     */
+    @Test
+    public void exhaustedPoolTimesOut() throws SQLException {
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        try {
+            pool.getConnection();
+            Assert.fail("Expected the third borrow to time out");
+        } catch (SQLTimeoutException e) {
+            Assert.assertEquals(1, pool.getTimeoutCount());
+        }
+        Assert.assertEquals(2, pool.getTotalCount());
+        first.close();
+        second.close();
+    }
+
+    /**
+     * A handle that has been returned must not be usable, and closing it twice must not return it twice.
+     */
+    @Test
+    public void returnedHandleIsUnusable() throws SQLException {
+        Connection connection = pool.getConnection();
+        connection.close();
+        connection.close();
+        Assert.assertTrue(connection.isClosed());
+        Assert.assertEquals(1, pool.getIdleCount());
+        try {
+            connection.prepareStatement("SELECT 1");
+            Assert.fail("Expected a returned connection to reject further use");
+        } catch (SQLException expected) {
+        }
+    }
+
+    /**
+     * Preparing the same SQL twice on a pooled connection should reuse the cached statement, even across borrows.
+     */
+    @Test
+    public void preparedStatementIsCachedPerConnection() throws SQLException {
+        Connection connection = pool.getConnection();
+        PreparedStatement first = connection.prepareStatement("SELECT ?");
+        connection.close();
+
+        connection = pool.getConnection();
+        PreparedStatement second = connection.prepareStatement("SELECT ?");
+        PreparedStatement withKeys = connection.prepareStatement("SELECT ?", Statement.RETURN_GENERATED_KEYS);
+        connection.close();
+
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(first, withKeys);
+        Assert.assertEquals(1, pool.getStatementCacheHits());
+        Assert.assertEquals(2, pool.getStatementCacheMisses());
+    }
+
+    /**
+     * An open transaction left behind by a borrower should be rolled back before the connection is reused.
+     */
+    @Test
+    public void returnedConnectionIsResetToAutoCommit() throws SQLException {
+        Connection connection = pool.getConnection();
+        connection.setAutoCommit(false);
+        connection.close();
+
+        Connection reused = pool.getConnection();
+        Assert.assertTrue(reused.getAutoCommit());
+        reused.close();
+    }
+
+    /**
+     * Result sets a borrower leaves open on cached statements should be closed when the connection is returned, so the
+     * idle connection does not keep their rows.
+     */
+    @Test
+    public void returnedConnectionClosesCachedResults() throws SQLException {
+        Connection connection = pool.getConnection();
+        ResultSet results = connection.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, 10)").executeQuery();
+        ResultSet keys = connection.prepareStatement("SELECT ?", Statement.RETURN_GENERATED_KEYS).getGeneratedKeys();
+        Assert.assertFalse(results.isClosed());
+        connection.close();
+
+        Assert.assertTrue(results.isClosed());
+        Assert.assertTrue(keys.isClosed());
+    }
+}
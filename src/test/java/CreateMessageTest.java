@@ -1,3 +1,4 @@
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -149,4 +150,34 @@ public class CreateMessageTest {
     }
 
 
+
+    /**
+     * Sending an http request to POST localhost:8080/messages with a body over the 16KB limit, once with a Content-Length
+     * header and once chunked without one
+     * 
+     * Expected Response:
+     *  Status Code: 413
+     */
+    @Test
+    public void createMessageBodyTooLarge() throws IOException, InterruptedException {
+        String body = "{" +
+                "\"posted_by\":1, " +
+                "\"message_text\": \"" + "a".repeat(20000) + "\", " +
+                "\"time_posted_epoch\": 1669947792}";
+        HttpRequest sizedRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse response = webClient.send(sizedRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(413, response.statusCode());
+
+        HttpRequest chunkedRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(body.getBytes())))
+                .header("Content-Type", "application/json")
+                .build();
+        response = webClient.send(chunkedRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(413, response.statusCode());
+    }
 }
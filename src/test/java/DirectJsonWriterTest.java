@@ -0,0 +1,59 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Model.Account;
+import Model.Message;
+import Util.DirectJsonWriter;
+
+public class DirectJsonWriterTest {
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * A message whose text needs escaping and multi-byte UTF-8 should serialize to exactly the bytes Jackson produces.
+     */
+    @Test
+    public void writeMessageMatchesJackson() throws IOException {
+        Message message = new Message(7, 3, "quote \" backslash \\ newline \n bell \u0007 caf\u00e9 \u20ac \ud83d\ude00", -1669947792L);
+        byte[] expected = objectMapper.writeValueAsBytes(message);
+        Assert.assertEquals(new String(expected, StandardCharsets.UTF_8),
+                new String(DirectJsonWriter.toBytes(message), StandardCharsets.UTF_8));
+
+        Account account = new Account(2, "user\tname", "p\"w");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DirectJsonWriter.writeAccount(account, out);
+        Assert.assertEquals(objectMapper.writeValueAsString(account), out.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * An unpaired surrogate should be escaped as Jackson does, not replaced, so it survives a round trip.
+     */
+    @Test
+    public void writeMessageEscapesUnpairedSurrogates() throws IOException {
+        Message message = new Message(1, 1, "x\ud800y \udc00 \ude00\ud83d", 1669947792L);
+        Assert.assertArrayEquals(objectMapper.writeValueAsBytes(message), DirectJsonWriter.toBytes(message));
+        Assert.assertEquals(message, objectMapper.readValue(DirectJsonWriter.toBytes(message), Message.class));
+    }
+
+    /**
+     * A list far larger than the writer's buffer should come out whole, across several flushes.
+     */
+    @Test
+    public void writeMessagesLargerThanBuffer() throws IOException {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 1; i <= 500; i++){
+            messages.add(new Message(i, 1, "message number " + i + " \u00e9\u00e9\u00e9", 1669947792L + i));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DirectJsonWriter.writeMessages(messages, out);
+        Assert.assertEquals(messages, objectMapper.readValue(out.toByteArray(), new TypeReference<List<Message>>(){}));
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import DAO.MessageDAO;
+import Model.Message;
+import Service.MessageIngestor;
+import Util.ConnectionUtil;
+
+public class MessageIngestorTest {
+    MessageDAO messageDAO;
+    MessageIngestor messageIngestor;
+
+    /**
+     * Before every test, reset the database and start an ingestor that commits batches of up to 50 messages.
+     */
+    @Before
+    public void setUp() {
+        ConnectionUtil.resetTestDatabase();
+        messageDAO = new MessageDAO();
+        messageIngestor = new MessageIngestor(messageDAO, 1000, 50, 20, 1000);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        messageIngestor.shutdown();
+    }
+
+    /**
+     * Messages submitted concurrently should all be inserted, in fewer commits than messages, and every future should
+     * complete with a distinct generated message_id.
+     */
+    @Test
+    public void submittedMessagesAreInsertedInBatches() throws InterruptedException {
+        List<CompletableFuture<Message>> futures = new ArrayList<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    CompletableFuture<Message> future = messageIngestor.submit(new Message(1, "message " + thread + "-" + i, 1669947792));
+                    synchronized (futures) {
+                        futures.add(future);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (CompletableFuture<Message> future : futures) {
+            Message inserted = future.join();
+            Assert.assertNotNull(inserted);
+            ids.add(inserted.getMessage_id());
+        }
+        Assert.assertEquals(200, ids.size());
+        Assert.assertEquals(201, messageDAO.getAllMessages().size());
+        Assert.assertEquals(200, messageIngestor.getMessageCount());
+        Assert.assertTrue(messageIngestor.getBatchCount() < 200);
+        Assert.assertEquals(0, messageIngestor.getQueueDepth());
+    }
+
+    /**
+     * A message whose author does not exist fails the batch's foreign key, but the other messages in the batch should
+     * still be inserted.
+     */
+    @Test
+    public void badMessageDoesNotFailItsBatch() {
+        CompletableFuture<Message> good = messageIngestor.submit(new Message(1, "good message", 1669947792));
+        CompletableFuture<Message> bad = messageIngestor.submit(new Message(99, "bad message", 1669947792));
+
+        Assert.assertNotNull(good.join());
+        Assert.assertNull(bad.join());
+        Assert.assertEquals(2, messageDAO.getAllMessages().size());
+    }
+
+    /**
+     * An Error thrown while writing a batch stops the writer, but the batch's futures should still fail, and messages
+     * submitted afterwards should be rejected rather than left waiting.
+     */
+    @Test
+    public void errorInBatchCompletesEveryFuture() throws InterruptedException {
+        MessageIngestor failing = new MessageIngestor(new MessageDAO(){
+            @Override
+            public List<Message> insertMessages(List<Message> messages) {
+                throw new AssertionError("simulated failure");
+            }
+        }, 1000, 50, 20, 1000);
+        try {
+            CompletableFuture<Message> future = failing.submit(new Message(1, "message", 1669947792));
+            try {
+                future.join();
+                Assert.fail("Expected the batch to fail");
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof AssertionError);
+            }
+            failing.shutdown();
+            CompletableFuture<Message> late = failing.submit(new Message(1, "late message", 1669947792));
+            try {
+                late.join();
+                Assert.fail("Expected a stopped ingestor to reject the message");
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+        } finally {
+            failing.shutdown();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import Controller.SocialMediaController;
+import Model.Message;
+import Model.MessagePage;
+import Util.ConnectionUtil;
+import io.javalin.Javalin;
+
+public class PaginateMessagesTest {
+    SocialMediaController socialMediaController;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+    Javalin app;
+
+    /**
+     * Before every test, reset the database, restart the Javalin app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web. Two more messages are posted so there are three in total.
+     * @throws InterruptedException
+     */
+    @Before
+    public void setUp() throws InterruptedException, IOException {
+        ConnectionUtil.resetTestDatabase();
+        socialMediaController = new SocialMediaController();
+        app = socialMediaController.startAPI();
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        app.start(8080);
+        Thread.sleep(1000);
+        postMessage("test message 2");
+        postMessage("test message 3");
+    }
+
+    @After
+    public void tearDown() {
+        app.stop();
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?limit=2, then following next_cursor
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a page of two messages with next_cursor 2, then a page of one message with no next_cursor
+     */
+    @Test
+    public void getMessagesPageFollowCursor() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/messages?limit=2");
+        Assert.assertEquals(200, response.statusCode());
+        MessagePage firstPage = objectMapper.readValue(response.body(), MessagePage.class);
+
+        List<Message> expectedFirst = new ArrayList<>();
+        expectedFirst.add(new Message(1, 1, "test message 1", 1669947792));
+        expectedFirst.add(new Message(2, 1, "test message 2", 1669947792));
+        Assert.assertEquals(new MessagePage(expectedFirst, 2), firstPage);
+
+        response = get("/messages?limit=2&after=" + firstPage.getNext_cursor());
+        Assert.assertEquals(200, response.statusCode());
+        List<Message> expectedSecond = new ArrayList<>();
+        expectedSecond.add(new Message(3, 1, "test message 3", 1669947792));
+        Assert.assertEquals(new MessagePage(expectedSecond, null), objectMapper.readValue(response.body(), MessagePage.class));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/1/messages?after=1
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a page of the account's messages after message 1, with no next_cursor
+     */
+    @Test
+    public void getAccountMessagesPage() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/accounts/1/messages?after=1");
+        Assert.assertEquals(200, response.statusCode());
+
+        List<Message> expected = new ArrayList<>();
+        expected.add(new Message(2, 1, "test message 2", 1669947792));
+        expected.add(new Message(3, 1, "test message 3", 1669947792));
+        Assert.assertEquals(new MessagePage(expected, null), objectMapper.readValue(response.body(), MessagePage.class));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?limit=0
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getMessagesPageInvalidLimit() throws IOException, InterruptedException {
+        Assert.assertEquals(400, get("/messages?limit=0").statusCode());
+        Assert.assertEquals(400, get("/messages?after=abc").statusCode());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?since=1669950000&limit=1, then following next_since and next_cursor
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the message posted at 1669950000, then the one posted at 1669960000, each on its own page
+     */
+    @Test
+    public void getMessagesSinceFollowCursor() throws IOException, InterruptedException {
+        postMessage("test message 4", 1669950000L);
+        postMessage("test message 5", 1669960000L);
+
+        HttpResponse<String> response = get("/messages?since=1669950000&limit=1");
+        Assert.assertEquals(200, response.statusCode());
+        MessagePage firstPage = objectMapper.readValue(response.body(), MessagePage.class);
+        List<Message> expectedFirst = new ArrayList<>();
+        expectedFirst.add(new Message(4, 1, "test message 4", 1669950000L));
+        Assert.assertEquals(new MessagePage(expectedFirst, 4, 1669950000L), firstPage);
+
+        response = get("/messages?limit=1&since=" + firstPage.getNext_since() + "&after=" + firstPage.getNext_cursor());
+        Assert.assertEquals(200, response.statusCode());
+        List<Message> expectedSecond = new ArrayList<>();
+        expectedSecond.add(new Message(5, 1, "test message 5", 1669960000L));
+        Assert.assertEquals(new MessagePage(expectedSecond, null, null), objectMapper.readValue(response.body(), MessagePage.class));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/1/messages?since=1669947793&until=1669960000
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the account's messages posted in that range, excluding the one posted at until
+     */
+    @Test
+    public void getAccountMessagesBetween() throws IOException, InterruptedException {
+        postMessage("test message 4", 1669950000L);
+        postMessage("test message 5", 1669960000L);
+
+        HttpResponse<String> response = get("/accounts/1/messages?since=1669947793&until=1669960000");
+        Assert.assertEquals(200, response.statusCode());
+        List<Message> expected = new ArrayList<>();
+        expected.add(new Message(4, 1, "test message 4", 1669950000L));
+        Assert.assertEquals(new MessagePage(expected, null, null), objectMapper.readValue(response.body(), MessagePage.class));
+        Assert.assertEquals(400, get("/accounts/1/messages?since=abc").statusCode());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?until=1669947792 after posting a message with a negative
+     * time_posted_epoch
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: only the message posted before until, since a missing since is unbounded
+     */
+    @Test
+    public void getMessagesUntilIncludesNegativeTimes() throws IOException, InterruptedException {
+        postMessage("test message 4", -1669947792L);
+
+        HttpResponse<String> response = get("/messages?until=1669947792");
+        Assert.assertEquals(200, response.statusCode());
+        List<Message> expected = new ArrayList<>();
+        expected.add(new Message(4, 1, "test message 4", -1669947792L));
+        Assert.assertEquals(new MessagePage(expected, null, null), objectMapper.readValue(response.body(), MessagePage.class));
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void postMessage(String text) throws IOException, InterruptedException {
+        postMessage(text, 1669947792L);
+    }
+
+    private void postMessage(String text, long time_posted_epoch) throws IOException, InterruptedException {
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{"+
+                        "\"posted_by\":1, " +
+                        "\"message_text\": \"" + text + "\", " +
+                        "\"time_posted_epoch\": " + time_posted_epoch + "}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+    }
+}
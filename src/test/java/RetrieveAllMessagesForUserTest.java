@@ -69,6 +69,40 @@ public class RetrieveAllMessagesForUserTest {
         Assert.assertEquals(expectedResult, actualResult);
     }
 
+    /**
+     * Sending an http request to GET localhost:8080/accounts/1/messages, then POST a new message for the user, then GET again
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON representation of a list of messages including the new message
+     */
+    @Test
+    public void getAllMessagesFromUserAfterNewMessage() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/1/messages"))
+                .build();
+        webClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{"+
+                        "\"posted_by\":1, " +
+                        "\"message_text\": \"test message 2\", " +
+                        "\"time_posted_epoch\": 1669947792}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+
+        List<Message> expectedResult = new ArrayList<>();
+        expectedResult.add(new Message(1, 1, "test message 1", 1669947792));
+        expectedResult.add(new Message(2, 1, "test message 2", 1669947792));
+        List<Message> actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
+        Assert.assertEquals(expectedResult, actualResult);
+    }
+
     /**
      * Sending an http request to GET localhost:8080/accounts/1/messages (messages does NOT exist for user) 
      * 
@@ -89,4 +123,47 @@ public class RetrieveAllMessagesForUserTest {
         List<Message> actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
         Assert.assertTrue(actualResult.isEmpty());
     }
+
+    /**
+     * Sending a conditional http request to GET localhost:8080/accounts/1/messages with the ETag of the previous response,
+     * before and after the account posts a new message
+     * 
+     * Expected Response:
+     *  Status Code: 304 with an empty body while nothing changed, then 200 with the new list and a new ETag
+     */
+    @Test
+    public void getAllMessagesFromUserIfNoneMatch() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/1/messages"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        Assert.assertNotNull(etag);
+
+        HttpRequest conditionalRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/1/messages"))
+                .header("If-None-Match", etag)
+                .build();
+        response = webClient.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(304, response.statusCode());
+        Assert.assertTrue(response.body().isEmpty());
+
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{"+
+                        "\"posted_by\":1, " +
+                        "\"message_text\": \"test message 2\", " +
+                        "\"time_posted_epoch\": 1669947792}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+
+        response = webClient.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertNotEquals(etag, response.headers().firstValue("ETag").orElse(null));
+        List<Message> expectedResult = new ArrayList<>();
+        expectedResult.add(new Message(1, 1, "test message 1", 1669947792));
+        expectedResult.add(new Message(2, 1, "test message 2", 1669947792));
+        Assert.assertEquals(expectedResult, objectMapper.readValue(response.body(), new TypeReference<List<Message>>(){}));
+    }
 }
@@ -99,6 +99,29 @@ public class RetrieveAllMessagesTest {
 
 
 
+    /**
+     * Sending an http request to GET localhost:8080/messages?stream=true
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON represenation of a list of message objects, the same as the non-streamed listing
+     */
+    @Test
+    public void getAllMessagesStreamed() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?stream=true"))
+                .build();
+        HttpResponse response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+
+        Assert.assertEquals(200, status);
+
+        List<Message> expectedResult = new ArrayList<>();
+        expectedResult.add(new Message(1, 1, "test message 1", 1669947792));
+        List<Message> actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
+        Assert.assertEquals(expectedResult, actualResult);
+    }
+
     private void removeInitialMessage(){
         try {
                 Connection conn = ConnectionUtil.getConnection();
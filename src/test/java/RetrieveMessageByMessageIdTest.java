@@ -3,12 +3,16 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import Controller.SocialMediaController;
@@ -86,5 +90,175 @@ public class RetrieveMessageByMessageIdTest {
         Assert.assertTrue(response.body().toString().isEmpty());
     }
 
+    /**
+     * Sending an http request to GET localhost:8080/messages?ids=100,1,1 (message id 100 does not exist)
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON representation of a list containing only message 1
+     */
+    @Test
+    public void getMessagesGivenMessageIds() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?ids=100,1,1"))
+                .build();
+        HttpResponse response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+
+        Assert.assertEquals(200, status);
+
+        List<Message> expectedResult = new ArrayList<>();
+        expectedResult.add(new Message(1, 1, "test message 1", 1669947792));
+        List<Message> actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
+        Assert.assertEquals(expectedResult, actualResult);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages?ids=1,abc
+     * 
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void getMessagesGivenInvalidMessageIds() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages?ids=1,abc"))
+                .build();
+        HttpResponse response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        Assert.assertEquals(400, response.statusCode());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/2 before and after message 2 is created
+     * 
+     * Expected Response:
+     *  Status Code: 200 both times
+     *  Response Body: empty before the message exists, then the newly created message
+     */
+    @Test
+    public void getMessageGivenMessageIdAfterMessageCreated() throws IOException, InterruptedException {
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/2"))
+                .build();
+        HttpResponse missingResponse = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, missingResponse.statusCode());
+        Assert.assertTrue(missingResponse.body().toString().isEmpty());
+
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString("{" +
+                        "\"posted_by\":1, " +
+                        "\"message_text\": \"hello message\", " +
+                        "\"time_posted_epoch\": 1669947792}"))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse postResponse = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, postResponse.statusCode());
+
+        HttpResponse response = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+        Message expectedResult = new Message(2, 1, "hello message", 1669947792);
+        Message actualResult = objectMapper.readValue(response.body().toString(), Message.class);
+        Assert.assertEquals(expectedResult, actualResult);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/1 twice, then again after PATCH localhost:8080/messages/1
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the same ETag for both reads of the unchanged message, then a new ETag and the updated text
+     */
+    @Test
+    public void getMessageGivenMessageIdETagChangesOnUpdate() throws IOException, InterruptedException {
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .build();
+        HttpResponse<String> first = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> second = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        String etag = first.headers().firstValue("ETag").orElse(null);
+        Assert.assertNotNull(etag);
+        Assert.assertEquals(etag, second.headers().firstValue("ETag").orElse(null));
+        Assert.assertEquals(first.body(), second.body());
+
+        HttpRequest patchRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"message_text\": \"updated message\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        Assert.assertEquals(200, webClient.send(patchRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpResponse<String> response = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertNotEquals(etag, response.headers().firstValue("ETag").orElse(null));
+        Message expectedResult = new Message(1, 1, "updated message", 1669947792);
+        Assert.assertEquals(expectedResult, objectMapper.readValue(response.body(), Message.class));
+    }
+
+    /**
+     * Sending a conditional http request to GET localhost:8080/messages/1 with the ETag of the previous response, plain
+     * and weak-prefixed, then once more after DELETE localhost:8080/messages/1
+     * 
+     * Expected Response:
+     *  Status Code: 304 with an empty body while the message is unchanged, then 200 with an empty body once it is deleted
+     */
+    @Test
+    public void getMessageGivenMessageIdIfNoneMatch() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .build();
+        String etag = webClient.send(request, HttpResponse.BodyHandlers.ofString()).headers().firstValue("ETag").orElse(null);
+        Assert.assertNotNull(etag);
 
+        for (String ifNoneMatch : new String[]{etag, "\"other\", W/" + etag}){
+            HttpRequest conditionalRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages/1"))
+                    .header("If-None-Match", ifNoneMatch)
+                    .build();
+            HttpResponse<String> response = webClient.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+            Assert.assertEquals(304, response.statusCode());
+            Assert.assertTrue(response.body().isEmpty());
+        }
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .DELETE()
+                .build();
+        Assert.assertEquals(200, webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpRequest conditionalRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .header("If-None-Match", etag)
+                .build();
+        HttpResponse<String> response = webClient.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertTrue(response.body().isEmpty());
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/2 while every pooled connection is borrowed, so the lookup
+     * times out waiting for one
+     * 
+     * Expected Response:
+     *  Status Code: 503
+     */
+    @Test
+    public void getMessageGivenMessageIdPoolExhausted() throws IOException, InterruptedException {
+        List<Connection> borrowed = new ArrayList<>();
+        try {
+            while (borrowed.size() < ConnectionUtil.getPool().getMaxSize()){
+                borrowed.add(ConnectionUtil.getConnection());
+            }
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages/2"))
+                    .build();
+            HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+            Assert.assertEquals(503, response.statusCode());
+        } finally {
+            for (Connection connection : borrowed){
+                ConnectionUtil.closeConnection(connection);
+            }
+        }
+    }
 }
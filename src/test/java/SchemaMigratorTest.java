@@ -0,0 +1,105 @@
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import Util.SchemaMigrator;
+
+public class SchemaMigratorTest {
+    Connection connection;
+    SchemaMigrator migrator;
+
+    /**
+     * Before every test, open a private in-memory database holding the original schema and one message.
+     */
+    @Before
+    public void setUp() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:migratortest;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("sa");
+        connection = dataSource.getConnection();
+        try (Statement statement = connection.createStatement()){
+            statement.execute("drop all objects");
+            statement.execute("create table account (account_id int primary key auto_increment, " +
+                    "username varchar(255) unique, password varchar(255))");
+            statement.execute("create table message (message_id int primary key auto_increment, posted_by int, " +
+                    "message_text varchar(255), time_posted_epoch bigint, " +
+                    "foreign key (posted_by) references account(account_id))");
+            statement.execute("insert into account (username, password) values ('testuser1', 'password')");
+            statement.execute("insert into message (posted_by, message_text, time_posted_epoch) values (1, 'kept', 1669947792)");
+        }
+        migrator = new SchemaMigrator("db/migration");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Migrating an existing database should add the indexes, keep its rows, and apply nothing the second time.
+     */
+    @Test
+    public void migrateExistingDatabaseOnce() throws SQLException {
+        int applied = migrator.migrate(connection);
+        Assert.assertTrue(applied >= 3);
+        Assert.assertEquals(0, migrator.migrate(connection));
+
+        try (Statement statement = connection.createStatement()){
+            ResultSet rs = statement.executeQuery("select message_text from message");
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals("kept", rs.getString(1));
+
+            rs = statement.executeQuery("select count(*) from information_schema.indexes " +
+                    "where index_name in ('MESSAGE_POSTED_BY_IDX', 'MESSAGE_TIME_POSTED_IDX')");
+            rs.next();
+            Assert.assertEquals(2, rs.getInt(1));
+
+            rs = statement.executeQuery("select count(*) from schema_version");
+            rs.next();
+            Assert.assertEquals(applied, rs.getInt(1));
+        }
+    }
+
+    /**
+     * An applied script whose contents no longer match its recorded checksum should stop the migration.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void migrateRejectsChangedScript() throws SQLException {
+        migrator.migrate(connection);
+        try (Statement statement = connection.createStatement()){
+            statement.execute("update schema_version set checksum = checksum + 1 where version = 2");
+        }
+        migrator.migrate(connection);
+    }
+
+    /**
+     * A script that fails against the existing schema should stop the migration instead of being skipped, and should
+     * not be recorded as applied.
+     */
+    @Test
+    public void migrateFailsOnBrokenScript() throws SQLException {
+        try (Statement statement = connection.createStatement()){
+            statement.execute("drop table message");
+            statement.execute("create table message (message_id int primary key auto_increment)");
+        }
+        try {
+            migrator.migrate(connection);
+            Assert.fail("Expected the index on a missing column to fail the migration");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getCause() instanceof SQLException);
+        }
+        try (Statement statement = connection.createStatement()){
+            ResultSet rs = statement.executeQuery("select count(*) from schema_version where version = 2");
+            rs.next();
+            Assert.assertEquals(0, rs.getInt(1));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import Util.SingleFlight;
+
+public class SingleFlightTest {
+
+    /**
+     * Callers asking for the same key while a load is in flight should share that load's result.
+     */
+    @Test
+    public void concurrentCallsShareOneLoad() throws Exception {
+        SingleFlight<Integer, String> flights = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] results = new Future<?>[8];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = executor.submit(() -> flights.execute(1, () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "message 1";
+                }));
+            }
+            //give every caller time to join the first load before letting it finish
+            while (flights.getExecutedCount() + flights.getCoalescedCount() < results.length) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Future<?> result : results) {
+                Assert.assertEquals("message 1", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, flights.getExecutedCount());
+        Assert.assertEquals(7, flights.getCoalescedCount());
+    }
+
+    /**
+     * Once a load has finished, or has been forgotten, the next call should run a new load.
+     */
+    @Test
+    public void finishedLoadIsNotReused() {
+        SingleFlight<Integer, String> flights = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        flights.execute(1, () -> "load " + loads.incrementAndGet());
+        flights.forget(1);
+        Assert.assertEquals("load 2", flights.execute(1, () -> "load " + loads.incrementAndGet()));
+        Assert.assertEquals(2, flights.getExecutedCount());
+    }
+
+    /**
+     * A failing load should fail every caller that shared it, and not stick around for the next call.
+     */
+    @Test
+    public void failedLoadIsRethrown() {
+        SingleFlight<Integer, String> flights = new SingleFlight<>();
+        try {
+            flights.execute(1, () -> {
+                throw new IllegalStateException("database down");
+            });
+            Assert.fail("Expected the load's exception");
+        } catch (IllegalStateException expected) {
+        }
+        Assert.assertEquals("recovered", flights.execute(1, () -> "recovered"));
+    }
+}
@@ -72,6 +72,37 @@ public class UpdateMessageTextTest {
     }
 
 
+    /**
+     * Sending an http request to GET localhost:8080/messages/1, then PATCH, then GET again (the first read caches the message)
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON representation of the message with the updated text, not the cached original
+     */
+    @Test
+    public void updateMessageThenGetReturnsUpdatedText() throws IOException, InterruptedException {
+        HttpRequest getMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .build();
+        webClient.send(getMessageRequest, HttpResponse.BodyHandlers.ofString());
+
+        HttpRequest patchMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/1"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{"+
+                        "\"message_text\": \"updated message\" }"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(patchMessageRequest, HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse response = webClient.send(getMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(200, response.statusCode());
+
+        Message expectedResult = new Message(1, 1, "updated message", 1669947792);
+        Message actualResult = objectMapper.readValue(response.body().toString(), Message.class);
+        Assert.assertEquals(expectedResult, actualResult);
+    }
+
+
     /**
      * Sending an http request to PATCH localhost:8080/messages/1 (message id does NOT exist in db) 
      * 